@@ -0,0 +1,128 @@
+package com.smartchatinputcolor;
+
+import net.runelite.api.VarClientStr;
+import net.runelite.api.gameval.InterfaceID;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Makes sure the code that runs on every keystroke doesn't allocate more than its budget.
+ * The client is a stub-only mock, the allocations of the mocked calls are measured separately and subtracted.
+ * Run with {@code ./gradlew allocationTest}, these are not part of the unit tests.
+ */
+public class AllocationBudgetTest {
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int MEASURED_CALLS = 10_000;
+
+    // Bytes per call that are allowed on top of the mocked client calls. The Flight Recorder events are allocated on
+    // every call, these budgets only hold once the optimizing JIT compiler (C2) has removed those allocations with
+    // escape analysis. The tests are skipped when the JVM runs interpreted or stops at the C1 compiler.
+    private static final long DERIVE_BUDGET = 8;
+    // The rendered string itself has to be allocated, which is about 100 bytes for these inputs
+    private static final long RECOLOR_BUDGET = 192;
+
+    private static final String[] MESSAGES = {"hello there <3", "hello there <3!"};
+    private static final String[] PREFIXED_MESSAGES = {"/c hello", "//hello", "/@gchello", "hello", "/f hello"};
+
+    private final StubClientFixture fixture = new StubClientFixture();
+
+    private SmartChatInputColorPlugin smartChatInputColorPlugin;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private String[] inputs;
+
+    private String[] widgetTexts;
+
+    private int inputIndex;
+
+    @Before
+    public void before() {
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        assumeTrue(
+            "The allocation budgets need the C2 compiler",
+            ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .noneMatch(arg -> arg.equals("-Xint") || arg.matches("-XX:TieredStopAtLevel=[0-3]"))
+        );
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        smartChatInputColorPlugin = fixture.startPlugin();
+        useInputs(MESSAGES);
+    }
+
+    private void useInputs(String[] inputs) {
+        // Create the widget texts up front, so the measured calls don't allocate them
+        this.inputs = inputs;
+        widgetTexts = new String[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            widgetTexts[i] = StubClientFixture.widgetText(inputs[i]);
+        }
+    }
+
+    private String nextInput() {
+        inputIndex = (inputIndex + 1) % inputs.length;
+        fixture.setInput(inputs[inputIndex], widgetTexts[inputIndex]);
+        return inputs[inputIndex];
+    }
+
+    private long allocatedBytesPerCall(Runnable call) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            call.run();
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / MEASURED_CALLS;
+    }
+
+    private void assertWithinBudget(long budget, Runnable call, Runnable mockedCalls) {
+        long mockedBytes = allocatedBytesPerCall(mockedCalls);
+        long bytes = allocatedBytesPerCall(call) - mockedBytes;
+        assertTrue("Allocated " + bytes + " bytes per call, budget is " + budget, bytes <= budget);
+    }
+
+    @Test
+    public void testDeriveChatChannelSamePrefix() {
+        assertWithinBudget(
+            DERIVE_BUDGET,
+            () -> smartChatInputColorPlugin.deriveChatChannel(nextInput()),
+            this::nextInput
+        );
+    }
+
+    @Test
+    public void testDeriveChatChannelChangingPrefix() {
+        useInputs(PREFIXED_MESSAGES);
+        assertWithinBudget(
+            DERIVE_BUDGET,
+            () -> smartChatInputColorPlugin.deriveChatChannel(nextInput()),
+            this::nextInput
+        );
+    }
+
+    @Test
+    public void testRecolorChatTypedText() {
+        assertWithinBudget(
+            RECOLOR_BUDGET,
+            () -> {
+                nextInput();
+                smartChatInputColorPlugin.recolorChatTypedText();
+            },
+            () -> {
+                nextInput();
+                fixture.getClient().getWidget(InterfaceID.Chatbox.INPUT).getText();
+                fixture.getClient().getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT);
+                fixture.getInputWidget().setText("");
+            }
+        );
+    }
+}
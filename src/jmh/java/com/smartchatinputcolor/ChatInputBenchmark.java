@@ -0,0 +1,103 @@
+package com.smartchatinputcolor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the code that runs on every keystroke in the chat input.
+ * The client is a stub-only mock, so allocations of the mocked client calls are included in the gc profiler results.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ChatInputBenchmark {
+    @Param({"plain", "prefixes", "long", "slashes"})
+    public String inputMix;
+
+    private final StubClientFixture fixture = new StubClientFixture();
+
+    private SmartChatInputColorPlugin plugin;
+
+    private String[] inputs;
+
+    private String[] widgetTexts;
+
+    private int inputIndex;
+
+    @Setup
+    public void setup() {
+        inputs = createInputs(inputMix);
+        widgetTexts = new String[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            widgetTexts[i] = StubClientFixture.widgetText(inputs[i]);
+        }
+
+        plugin = fixture.startPlugin();
+    }
+
+    private static String[] createInputs(String inputMix) {
+        switch (inputMix) {
+            case "plain":
+                return new String[]{"hello", "how are you doing today", "gz on the 99!", "anyone selling <3 items?"};
+            case "prefixes":
+                return new String[]{
+                    "/p hi", "/@phi", "/f hi", "/@f hi", "/c hi", "/@chi", "/gc hi", "/@gchi", "/g hi", "/@ghi"
+                };
+            case "long":
+                return new String[]{
+                    "a".repeat(80),
+                    "/c " + "<b>".repeat(25),
+                    "selling " + "bandos tassets ".repeat(5),
+                };
+            case "slashes":
+                return new String[]{"/hi", "//hi", "///hi", "////hi", "//////hi"};
+        }
+        throw new IllegalArgumentException("Unknown input mix " + inputMix);
+    }
+
+    private String nextInput() {
+        inputIndex = (inputIndex + 1) % inputs.length;
+        fixture.setInput(inputs[inputIndex], widgetTexts[inputIndex]);
+        return inputs[inputIndex];
+    }
+
+    @Benchmark
+    public MessagePrefix messagePrefix() {
+        return MessagePrefix.fromText(nextInput());
+    }
+
+    @Benchmark
+    public ChatChannel deriveChatChannel() {
+        return plugin.deriveChatChannel(nextInput());
+    }
+
+    @Benchmark
+    public void populateChatChannelColorMap() {
+        // Forget all cached lookups, so every color is resolved again like on the first login
+        plugin.invalidateColors();
+        plugin.populateChatChannelColorMap();
+    }
+
+    @Benchmark
+    public void refreshChatChannelColorMap() {
+        // Varps are unchanged, like on a relog, so only the varps are read
+        plugin.populateChatChannelColorMap();
+    }
+
+    @Benchmark
+    public void recolorChatTypedText() {
+        nextInput();
+        plugin.recolorChatTypedText();
+    }
+}
@@ -0,0 +1,61 @@
+package com.smartchatinputcolor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the first keystrokes after starting the plugin take to recolor, with and without warming up.
+ * Every fork is a new JVM, so each measurement starts with cold code. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class FirstRecolorBenchmark {
+    private static final String[] TYPED_TEXTS = {"h", "he", "hel", "hell", "hello", "hello!", "/", "/c", "/c ", "/c h"};
+
+    @Param({"false", "true"})
+    public boolean warmUp;
+
+    private final StubClientFixture fixture = new StubClientFixture();
+
+    private final String[] widgetTexts = new String[TYPED_TEXTS.length];
+
+    private SmartChatInputColorPlugin plugin;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < TYPED_TEXTS.length; i++) {
+            widgetTexts[i] = StubClientFixture.widgetText(TYPED_TEXTS[i]);
+        }
+
+        plugin = fixture.startPlugin();
+
+        if (warmUp) {
+            // The plugin runs this on a background thread, which finishes long before the player starts typing.
+            // Running the follow-up tasks right away does the whole warm-up here.
+            new ChatInputWarmup(Runnable::run).run();
+        }
+    }
+
+    @Benchmark
+    public void firstRecolors() {
+        for (int i = 0; i < TYPED_TEXTS.length; i++) {
+            fixture.setInput(TYPED_TEXTS[i], widgetTexts[i]);
+            plugin.recolorChatTypedText();
+        }
+    }
+}
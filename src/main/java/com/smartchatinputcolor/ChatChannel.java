@@ -9,9 +9,6 @@ import net.runelite.client.ui.JagexColors;
 
 import javax.annotation.Nullable;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Pattern;
 
 @RequiredArgsConstructor
 @Getter
@@ -22,7 +19,6 @@ enum ChatChannel {
         VarPlayerID.OPTION_CHAT_COLOUR_PUBLIC_OPAQUE,
         JagexColors.CHAT_TYPED_TEXT_TRANSPARENT_BACKGROUND,
         JagexColors.CHAT_TYPED_TEXT_OPAQUE_BACKGROUND,
-        Pattern.compile("^/(@p|p ).*"),
         0
     ),
     FRIEND(
@@ -31,7 +27,6 @@ enum ChatChannel {
         VarPlayerID.OPTION_CHAT_COLOUR_FRIENDSCHAT_OPAQUE,
         JagexColors.CHAT_FC_TEXT_TRANSPARENT_BACKGROUND,
         JagexColors.CHAT_FC_TEXT_OPAQUE_BACKGROUND,
-        Pattern.compile("^/(@?f).*"),
         1
     ),
     CLAN(
@@ -40,7 +35,6 @@ enum ChatChannel {
         VarPlayerID.OPTION_CHAT_COLOUR_CLANCHAT_OPAQUE,
         DefaultColors.CLAN_AND_GIM,
         DefaultColors.CLAN_AND_GIM,
-        Pattern.compile("^/(@c|c ).*"),
         2
     ),
     GUEST(
@@ -49,7 +43,6 @@ enum ChatChannel {
         VarPlayerID.OPTION_CHAT_COLOUR_GUESTCLAN_OPAQUE,
         DefaultColors.GUEST_CLAN_TRANSPARENT,
         DefaultColors.GUEST_CLAN_OPAQUE,
-        Pattern.compile("^/(@gc|gc ).*"),
         3
     ),
     GIM(
@@ -58,7 +51,6 @@ enum ChatChannel {
         VarPlayerID.OPTION_CHAT_COLOUR_GIMCHAT_OPAQUE,
         DefaultColors.CLAN_AND_GIM,
         DefaultColors.CLAN_AND_GIM,
-        Pattern.compile("^/(@g[^c]|g ).*"),
         4
     );
 
@@ -70,63 +62,107 @@ enum ChatChannel {
     private final Color transparentDefaultColor;
     private final Color opaqueDefaultColor;
 
-    @Getter(AccessLevel.NONE)
-    private final Pattern prefixRegex;
     @Getter(AccessLevel.NONE)
     private final int defaultSlashPrefixCount;
 
-    private final static Map<Integer, ChatChannel> slashPrefixMap = new HashMap<>();
+    // Chat channel of every slash prefix, indexed by Slash Swapper mode and then by the number of slashes.
+    // These are never modified after the class is initialized, so they can be read from any thread.
+    private final static ChatChannel[][] slashPrefixChannels = new ChatChannel[SlashSwapperMode.values().length][];
 
-    /**
-     * Set the slash prefixes to their default values
-     */
-    public static void useDefaultSlashPrefixes() {
-        slashPrefixMap.clear();
+    // Chat channel whose transparent or opaque color is stored in a varp, indexed by varp id
+    private final static ChatChannel[] colorVarpChannels;
+
+    static {
+        int maxVarpId = 0;
+        for (ChatChannel channel : ChatChannel.values()) {
+            maxVarpId = Math.max(maxVarpId, Math.max(channel.transparentVarpId, channel.opaqueVarpId));
+        }
+
+        colorVarpChannels = new ChatChannel[maxVarpId + 1];
+        for (ChatChannel channel : ChatChannel.values()) {
+            colorVarpChannels[channel.transparentVarpId] = channel;
+            colorVarpChannels[channel.opaqueVarpId] = channel;
+        }
+
+        int maxSlashPrefixCount = 0;
         for (ChatChannel channel : ChatChannel.values()) {
-            slashPrefixMap.put(channel.defaultSlashPrefixCount, channel);
+            maxSlashPrefixCount = Math.max(maxSlashPrefixCount, channel.defaultSlashPrefixCount);
         }
-        slashPrefixMap.remove(PUBLIC.defaultSlashPrefixCount);
+
+        ChatChannel[] defaultSlashPrefixes = new ChatChannel[maxSlashPrefixCount + 1];
+        for (ChatChannel channel : ChatChannel.values()) {
+            defaultSlashPrefixes[channel.defaultSlashPrefixCount] = channel;
+        }
+        // Messages without a slash prefix are not sent to public chat explicitly
+        defaultSlashPrefixes[PUBLIC.defaultSlashPrefixCount] = null;
+        slashPrefixChannels[SlashSwapperMode.OFF.ordinal()] = defaultSlashPrefixes;
+
+        // Slash Swapper swaps the friends and clan chat prefixes, and optionally the clan and guest chat prefixes
+        slashPrefixChannels[SlashSwapperMode.ON.ordinal()] = new ChatChannel[]{null, CLAN, FRIEND, GUEST, GIM};
+        slashPrefixChannels[SlashSwapperMode.ON_SWAP_GUEST_CHAT.ordinal()] =
+            new ChatChannel[]{null, GUEST, FRIEND, CLAN, GIM};
+    }
+
+    /**
+     * Get the chat channel whose slash prefix has the given number of slashes
+     *
+     * @param mode  Slash Swapper mode that decides which slash prefixes are used
+     * @param count Number of slashes
+     * @return Chat channel whose slash prefix has the given number of slashes
+     */
+    @Nullable
+    public static ChatChannel fromSlashCount(SlashSwapperMode mode, int count) {
+        ChatChannel[] channels = slashPrefixChannels[mode.ordinal()];
+        return count < channels.length ? channels[count] : null;
     }
 
     /**
-     * Configure slash prefixes when Slash Swapper is enabled
+     * Get the chat channel whose color is stored in a varp
      *
-     * @param guestChatConfig Whether the guest chat config is enabled on Slash Swapper
+     * @param varpId Varp id
+     * @return Chat channel whose transparent or opaque color is stored in the varp, or null if there is none
      */
-    public static void useSlashSwapperPrefixes(boolean guestChatConfig) {
-        slashPrefixMap.clear();
-        slashPrefixMap.put(2, FRIEND);
-        slashPrefixMap.put(4, GIM);
-
-        if (guestChatConfig) {
-            slashPrefixMap.put(3, CLAN);
-            slashPrefixMap.put(1, GUEST);
-            return;
+    @Nullable
+    public static ChatChannel fromColorVarp(@Varp int varpId) {
+        if (varpId < 0 || varpId >= colorVarpChannels.length) {
+            return null;
         }
 
-        slashPrefixMap.put(1, CLAN);
-        slashPrefixMap.put(3, GUEST);
+        return colorVarpChannels[varpId];
     }
 
+    /**
+     * Get the chat channel whose color is set by a RuneLite chat color config key
+     *
+     * @param configKey Key in the textrecolor config group, e.g. opaqueClanMessage
+     * @return Chat channel whose transparent or opaque color is set by the key, or null if there is none
+     */
     @Nullable
-    public static ChatChannel fromSlashPrefix(String text) {
-        int slashCount = 0;
-        while (slashCount < text.length() && text.charAt(slashCount) == '/') {
-            slashCount++;
+    public static ChatChannel fromColorConfigKey(String configKey) {
+        for (ChatChannel channel : ChatChannel.values()) {
+            if (channel.colorConfigKey != null
+                && (configKey.equals(channel.getColorConfigKey(true))
+                || configKey.equals(channel.getColorConfigKey(false)))) {
+                return channel;
+            }
         }
 
-        return slashPrefixMap.get(Math.min(slashCount, 4));
+        return null;
     }
 
     /**
-     * Get the chat channel whose slash prefix has the given number of slashes
+     * Get the key of this channel's color in the RuneLite chat color config
      *
-     * @param count Number of slashes
-     * @return Chat channel whose slash prefix has the given number of slashes
+     * @param transparent Whether to get the key of the transparent chat box color
+     * @return Key in the textrecolor config group, or null if the channel has no color config
      */
     @Nullable
-    public static ChatChannel fromSlashCount(int count) {
-        return slashPrefixMap.get(count);
+    public String getColorConfigKey(boolean transparent) {
+        if (colorConfigKey == null) {
+            return null;
+        }
+
+        return (transparent ? "transparent" : "opaque") + colorConfigKey;
     }
 
     /**
@@ -148,14 +184,4 @@ enum ChatChannel {
 
         return null;
     }
-
-    /**
-     * Check if the input text matches this channel's prefix regex
-     *
-     * @param text Input text
-     * @return Whether the text matches this channel's prefix regex
-     */
-    public boolean matchesPrefixRegex(String text) {
-        return prefixRegex.matcher(text).matches();
-    }
 }
@@ -0,0 +1,47 @@
+package com.smartchatinputcolor;
+
+/**
+ * Colors of every chat channel as packed RGB values, with the transparent and opaque chat box colors side by side
+ */
+class ChatChannelColors {
+    private final int[] colors = new int[ChatChannel.values().length * 2];
+
+    /**
+     * @param channel     Chat channel
+     * @param transparent Whether to get the color for a transparent chat box
+     * @return Packed RGB color of the chat channel
+     */
+    int get(ChatChannel channel, boolean transparent) {
+        return colors[index(channel, transparent)];
+    }
+
+    /**
+     * @param channel     Chat channel
+     * @param transparent Whether to set the color for a transparent chat box
+     * @param rgb         Packed RGB color of the chat channel
+     */
+    void set(ChatChannel channel, boolean transparent, int rgb) {
+        colors[index(channel, transparent)] = rgb;
+    }
+
+    /**
+     * @return Copy of all colors, indexed like {@link #index}
+     */
+    int[] toArray() {
+        return colors.clone();
+    }
+
+    /**
+     * @param rgbs Packed RGB colors of all chat channels, indexed like {@link #index}
+     */
+    void setAll(int[] rgbs) {
+        System.arraycopy(rgbs, 0, colors, 0, colors.length);
+    }
+
+    /**
+     * @return Index of the color of a chat channel, between 0 and twice the number of chat channels
+     */
+    static int index(ChatChannel channel, boolean transparent) {
+        return channel.ordinal() * 2 + (transparent ? 1 : 0);
+    }
+}
@@ -0,0 +1,269 @@
+package com.smartchatinputcolor;
+
+import javax.annotation.Nullable;
+
+/**
+ * Lookup table containing the chat channel a message will be sent to for every combination of message prefix,
+ * chat panel, friends chat membership, chat mode and account type. The slash prefixes of a Slash Swapper mode are
+ * baked into the table, so there is one table for every mode. Tables are compiled once and never modified after.
+ */
+class ChatChannelTable {
+    /**
+     * Why a message is sent to the channel it is sent to
+     */
+    enum Reason {
+        MESSAGE_PREFIX,
+        CHAT_PANEL,
+        CHAT_MODE,
+        DEFAULT,
+    }
+
+    private static final MessagePrefix[] PREFIXES = MessagePrefix.values();
+    private static final ChatPanel[] CHAT_PANELS = ChatPanel.values();
+    private static final ChatChannel[] CHAT_CHANNELS = ChatChannel.values();
+    // The chat mode is either one of the chat channels or no chat mode at all
+    private static final int CHAT_MODE_COUNT = CHAT_CHANNELS.length + 1;
+
+    private static final int SIZE = CHAT_PANELS.length * 2 * CHAT_MODE_COUNT * 2 * PREFIXES.length;
+
+    private static final ChatChannelTable[] TABLES = new ChatChannelTable[SlashSwapperMode.values().length];
+
+    static {
+        for (SlashSwapperMode mode : SlashSwapperMode.values()) {
+            TABLES[mode.ordinal()] = compile(mode);
+        }
+    }
+
+    private final SlashSwapperMode slashSwapperMode;
+
+    private final ChatChannel[] channels = new ChatChannel[SIZE];
+
+    private final Reason[] reasons = new Reason[SIZE];
+
+    private ChatChannelTable(SlashSwapperMode slashSwapperMode) {
+        this.slashSwapperMode = slashSwapperMode;
+    }
+
+    /**
+     * Get the compiled table of a Slash Swapper mode
+     *
+     * @param mode Slash Swapper mode
+     * @return Table using the slash prefixes of the mode
+     */
+    static ChatChannelTable forMode(SlashSwapperMode mode) {
+        return TABLES[mode.ordinal()];
+    }
+
+    /**
+     * Compile a table for every possible input, using the slash prefixes of a Slash Swapper mode
+     *
+     * @return Compiled table
+     */
+    private static ChatChannelTable compile(SlashSwapperMode mode) {
+        ChatChannelTable table = new ChatChannelTable(mode);
+        for (ChatPanel chatPanel : CHAT_PANELS) {
+            for (int friendsChat = 0; friendsChat < 2; friendsChat++) {
+                for (int chatMode = -1; chatMode < CHAT_CHANNELS.length; chatMode++) {
+                    for (int groupIronman = 0; groupIronman < 2; groupIronman++) {
+                        for (MessagePrefix prefix : PREFIXES) {
+                            boolean inFriendsChat = friendsChat == 1;
+                            ChatChannel chatModeChannel = chatMode == -1 ? null : CHAT_CHANNELS[chatMode];
+                            boolean isGroupIronman = groupIronman == 1;
+                            table.derive(
+                                index(prefix, chatPanel, inFriendsChat, chatModeChannel, isGroupIronman),
+                                prefix,
+                                chatPanel,
+                                inFriendsChat,
+                                chatModeChannel,
+                                isGroupIronman
+                            );
+                        }
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @param index Index of the inputs, see {@link #index}
+     * @return Chat channel that the message will be sent to
+     */
+    ChatChannel getChannel(int index) {
+        return channels[index];
+    }
+
+    /**
+     * @param index Index of the inputs, see {@link #index}
+     * @return Why the message will be sent to its chat channel
+     */
+    Reason getReason(int index) {
+        return reasons[index];
+    }
+
+    /**
+     * Get the index of a combination of inputs in the table
+     *
+     * @param prefix        Prefix of the message
+     * @param chatPanel     Currently selected chat panel
+     * @param inFriendsChat Whether the player is in a friends chat
+     * @param chatMode      Currently active chat mode, or null if there is none
+     * @param groupIronman  Whether the account is a group ironman
+     * @return Index of the inputs
+     */
+    static int index(
+        MessagePrefix prefix,
+        ChatPanel chatPanel,
+        boolean inFriendsChat,
+        @Nullable ChatChannel chatMode,
+        boolean groupIronman
+    ) {
+        int index = chatPanel.ordinal();
+        index = index * 2 + (inFriendsChat ? 1 : 0);
+        index = index * CHAT_MODE_COUNT + (chatMode == null ? 0 : chatMode.ordinal() + 1);
+        index = index * 2 + (groupIronman ? 1 : 0);
+        return index * PREFIXES.length + prefix.ordinal();
+    }
+
+    /**
+     * Decide which channel a message will be sent to and why, and store it at the given index
+     */
+    private void derive(
+        int index,
+        MessagePrefix prefix,
+        ChatPanel chatPanel,
+        boolean inFriendsChat,
+        @Nullable ChatChannel chatMode,
+        boolean groupIronman
+    ) {
+        ChatChannel friendsChatChannel = inFriendsChat ? ChatChannel.FRIEND : ChatChannel.PUBLIC;
+
+        // First check if the text starts with one of the prefixes
+        ChatChannel messagePrefixChannel = findChannelByMessagePrefix(prefix, friendsChatChannel, groupIronman);
+        if (messagePrefixChannel != null) {
+            set(index, messagePrefixChannel, Reason.MESSAGE_PREFIX);
+            return;
+        }
+
+        ChatChannel chatPanelChannel = getChatPanelChannel(chatPanel, friendsChatChannel, groupIronman);
+        if (chatPanelChannel != ChatChannel.PUBLIC) {
+            set(index, chatPanelChannel, Reason.CHAT_PANEL);
+            return;
+        }
+
+        // If it didn't match a prefix, check if in a certain chat mode
+        if (chatMode == ChatChannel.FRIEND && friendsChatChannel == ChatChannel.PUBLIC) {
+            // It's possible to set chat mode to friends and then leave the channel.
+            // Messages sent in this mode go nowhere, but we have to pick a color, so we default to public.
+            // TODO: Add a separate channel / color for messages that don't go anywhere?
+            set(index, ChatChannel.PUBLIC, Reason.CHAT_MODE);
+            return;
+        }
+        // If a chat mode is active, use it
+        if (chatMode != null) {
+            set(index, chatMode, Reason.CHAT_MODE);
+            return;
+        }
+
+        // This message isn't going anywhere according to the checks, send it to public by default
+        set(index, ChatChannel.PUBLIC, Reason.DEFAULT);
+    }
+
+    private void set(int index, ChatChannel channel, Reason reason) {
+        channels[index] = channel;
+        reasons[index] = reason;
+    }
+
+    /**
+     * Find the channel that a message would be sent to based on the prefix.
+     *
+     * @return Channel that the message would be sent to or null
+     */
+    @Nullable
+    private ChatChannel findChannelByMessagePrefix(
+        MessagePrefix prefix,
+        ChatChannel friendsChatChannel,
+        boolean groupIronman
+    ) {
+        ChatChannel channel = prefix.getChannel();
+        if (channel == null) {
+            // Check the slash prefix if there is no explicit channel prefix
+            channel = ChatChannel.fromSlashCount(slashSwapperMode, prefix.getSlashCount());
+        }
+
+        if (channel == null) {
+            return null;
+        }
+
+        switch (channel) {
+            case FRIEND:
+                return friendsChatChannel;
+            case GIM:
+                return getGIMChatChannel(prefix, friendsChatChannel, groupIronman);
+            default:
+                return channel;
+        }
+    }
+
+    /**
+     * Find the resulting channel, keeping in mind whether the player is currently in a friends channel
+     *
+     * @return Chat channel that the message will really go to
+     */
+    @Nullable
+    private static ChatChannel getResultingChannel(@Nullable ChatChannel channel, ChatChannel friendsChatChannel) {
+        return channel == ChatChannel.FRIEND ? friendsChatChannel : channel;
+    }
+
+    /**
+     * Find the chat channel that a message will be sent to when trying to send to group ironman channel. If an account
+     * is a Group Ironman, the Group Ironman chat channel is available. Otherwise, a bit more logic is involved.
+     *
+     * @return Chat channel that the message will go to
+     */
+    @Nullable
+    private ChatChannel getGIMChatChannel(
+        MessagePrefix prefix,
+        ChatChannel friendsChatChannel,
+        boolean groupIronman
+    ) {
+        if (groupIronman) {
+            return ChatChannel.GIM;
+        }
+
+        switch (prefix) {
+            case GIM:
+                return getResultingChannel(ChatChannel.fromSlashCount(slashSwapperMode, 1), friendsChatChannel);
+            case GIM_AT:
+                return ChatChannel.CLAN;
+            case SLASH_4:
+                return getResultingChannel(ChatChannel.fromSlashCount(slashSwapperMode, 3), friendsChatChannel);
+        }
+
+        // This never happens because the prefix passed into this function
+        // will always be one of the prefixes handled above
+        return ChatChannel.GIM;
+    }
+
+    /**
+     * Get the chat channel that a message should be sent to, based on the selected chat panel
+     *
+     * @return Chat channel that the message will go to
+     */
+    private static ChatChannel getChatPanelChannel(
+        ChatPanel chatPanel,
+        ChatChannel friendsChatChannel,
+        boolean groupIronman
+    ) {
+        switch (chatPanel) {
+            case CHANNEL:
+                return friendsChatChannel;
+            case CLAN:
+                return ChatChannel.CLAN;
+            case TRADE_OR_GIM:
+                return groupIronman ? ChatChannel.GIM : ChatChannel.PUBLIC;
+        }
+
+        return ChatChannel.PUBLIC;
+    }
+}
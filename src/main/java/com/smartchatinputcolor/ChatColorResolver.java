@@ -0,0 +1,187 @@
+package com.smartchatinputcolor;
+
+import net.runelite.api.Client;
+import net.runelite.client.config.ConfigManager;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Resolves the color of a chat channel from the RuneLite chat color config, the in-game setting or the default color,
+ * in that order. Lookups are cached, including config keys and varps that aren't set, and so are the resolved color
+ * and the tier it came from, until the config key or varp that feeds them is invalidated.
+ */
+class ChatColorResolver {
+    /**
+     * Where a chat channel color comes from
+     */
+    enum Tier {
+        CONFIG,
+        VARP,
+        DEFAULT,
+    }
+
+    private static final ChatChannel[] CHANNELS = ChatChannel.values();
+
+    private static final int CHANNEL_COUNT = CHANNELS.length;
+
+    private final Client client;
+
+    private final ConfigManager configManager;
+
+    // Cached lookups, indexed like ChatChannelColors
+    private final boolean[] configLoaded = new boolean[CHANNEL_COUNT * 2];
+    private final boolean[] configSet = new boolean[CHANNEL_COUNT * 2];
+    private final int[] configColors = new int[CHANNEL_COUNT * 2];
+    private final boolean[] varpLoaded = new boolean[CHANNEL_COUNT * 2];
+    private final int[] varpValues = new int[CHANNEL_COUNT * 2];
+    // Tier that the resolved color came from, or null if it has to be resolved again
+    private final Tier[] tiers = new Tier[CHANNEL_COUNT * 2];
+    private final int[] colors = new int[CHANNEL_COUNT * 2];
+
+    @Inject
+    ChatColorResolver(Client client, ConfigManager configManager) {
+        this.client = client;
+        this.configManager = configManager;
+    }
+
+    /**
+     * Compute the color of a chat channel based on RL and in-game settings
+     *
+     * @param channel     Chat channel
+     * @param transparent Whether to get the color for a transparent chat box
+     * @return Packed RGB color that the text should be colored for the given chat channel
+     */
+    int resolve(ChatChannel channel, boolean transparent) {
+        int index = ChatChannelColors.index(channel, transparent);
+        if (tiers[index] == null) {
+            colors[index] = resolveTier(channel, transparent, index);
+        }
+        return colors[index];
+    }
+
+    private int resolveTier(ChatChannel channel, boolean transparent, int index) {
+        if (!configLoaded[index]) {
+            loadConfig(channel, transparent, index);
+        }
+        if (configSet[index]) {
+            tiers[index] = Tier.CONFIG;
+            return configColors[index];
+        }
+
+        if (!varpLoaded[index]) {
+            varpValues[index] = client.getVarpValue(
+                transparent ? channel.getTransparentVarpId() : channel.getOpaqueVarpId());
+            varpLoaded[index] = true;
+        }
+        // Zero means there is no value set, use the default value for this channel
+        if (varpValues[index] != 0) {
+            tiers[index] = Tier.VARP;
+            // Color code saved in the varp is offset by 1
+            return varpValues[index] - 1;
+        }
+
+        tiers[index] = Tier.DEFAULT;
+        return (transparent ? channel.getTransparentDefaultColor() : channel.getOpaqueDefaultColor()).getRGB()
+            & 0xFFFFFF;
+    }
+
+    /**
+     * Read the config of chat channel colors without touching the cache, so it can be called from any thread
+     *
+     * @param changed Bit for every color to read, indexed like ChatChannelColors
+     * @return Colors to install with {@link #install}
+     */
+    ColorConfigUpdate readConfig(int changed) {
+        int set = 0;
+        int[] colors = new int[CHANNEL_COUNT * 2];
+        for (int bits = changed; bits != 0; bits &= bits - 1) {
+            int index = Integer.numberOfTrailingZeros(bits);
+            Color color = readConfigColor(CHANNELS[index / 2], index % 2 == 1);
+            if (color != null) {
+                set |= 1 << index;
+                colors[index] = color.getRGB() & 0xFFFFFF;
+            }
+        }
+        return new ColorConfigUpdate(changed, set, colors);
+    }
+
+    /**
+     * Use config colors that were read with {@link #readConfig}, these are resolved again on the next resolve
+     */
+    void install(ColorConfigUpdate update) {
+        for (int bits = update.getChanged(); bits != 0; bits &= bits - 1) {
+            int index = Integer.numberOfTrailingZeros(bits);
+            configSet[index] = (update.getSet() & 1 << index) != 0;
+            configColors[index] = update.getColors()[index];
+            configLoaded[index] = true;
+            tiers[index] = null;
+        }
+    }
+
+    /**
+     * Read the varp of a chat channel color again on the next resolve
+     *
+     * @return Whether the resolved color may change, which is not the case when the RuneLite config overrides it
+     */
+    boolean invalidateVarp(ChatChannel channel, boolean transparent) {
+        int index = ChatChannelColors.index(channel, transparent);
+        varpLoaded[index] = false;
+        if (tiers[index] == Tier.CONFIG) {
+            return false;
+        }
+
+        tiers[index] = null;
+        return true;
+    }
+
+    /**
+     * Read the varp of a chat channel color and compare it with the cached value, varps can change without an event,
+     * e.g. when logging in to another account
+     *
+     * @return Whether the resolved color may have changed, which is not the case when neither the varp nor the config
+     * changed, or when the RuneLite config overrides it
+     */
+    boolean refreshVarp(ChatChannel channel, boolean transparent) {
+        int index = ChatChannelColors.index(channel, transparent);
+        int value = client.getVarpValue(transparent ? channel.getTransparentVarpId() : channel.getOpaqueVarpId());
+        if (varpLoaded[index] && varpValues[index] == value && tiers[index] != null) {
+            return false;
+        }
+
+        varpValues[index] = value;
+        varpLoaded[index] = true;
+        if (tiers[index] == Tier.CONFIG) {
+            return false;
+        }
+
+        tiers[index] = null;
+        return true;
+    }
+
+    /**
+     * Forget all cached lookups
+     */
+    void invalidateAll() {
+        Arrays.fill(configLoaded, false);
+        Arrays.fill(varpLoaded, false);
+        Arrays.fill(tiers, null);
+    }
+
+    private void loadConfig(ChatChannel channel, boolean transparent, int index) {
+        Color color = readConfigColor(channel, transparent);
+        configSet[index] = color != null;
+        configColors[index] = color == null ? 0 : color.getRGB() & 0xFFFFFF;
+        configLoaded[index] = true;
+    }
+
+    @Nullable
+    private Color readConfigColor(ChatChannel channel, boolean transparent) {
+        String colorConfigKey = channel.getColorConfigKey(transparent);
+        return colorConfigKey == null
+            ? null
+            : configManager.getConfiguration("textrecolor", colorConfigKey, Color.class);
+    }
+}
@@ -0,0 +1,140 @@
+package com.smartchatinputcolor;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+
+/**
+ * Chat state that decides which channel the chat input is sent to, together with the last resolved channel and the
+ * last rendered text. It doesn't read any client state or record anything, so the warm-up can use its own instance on
+ * any thread.
+ */
+class ChatInputRecolorer {
+    // Currently opened chat panel, or null if nothing is known about the chat yet
+    @Getter
+    @Nullable
+    private ChatPanel chatPanel;
+
+    private boolean inFriendsChat;
+
+    // Active chat mode, or null if there is none
+    @Nullable
+    private ChatChannel chatMode;
+
+    private boolean groupIronman;
+
+    // Incremented whenever state that affects the resolved chat channel changes
+    private int stateVersion;
+
+    private MessagePrefix resolvedPrefix;
+
+    private int resolvedStateVersion;
+
+    private ChatChannelTable resolvedTable;
+
+    @Getter
+    private ChatChannel resolvedChannel;
+
+    @Getter
+    private ChatChannelTable.Reason resolvedReason;
+
+    private final ChatInputRenderer renderer = new ChatInputRenderer();
+
+    // Last rendered text and what it was rendered from
+    private String renderedText;
+
+    private String renderedTypedText;
+
+    private ChatChannel renderedChannel;
+
+    private int renderedColor;
+
+    void setChatPanel(ChatPanel chatPanel) {
+        if (chatPanel != this.chatPanel) {
+            this.chatPanel = chatPanel;
+            stateVersion++;
+        }
+    }
+
+    void setInFriendsChat(boolean inFriendsChat) {
+        if (inFriendsChat != this.inFriendsChat) {
+            this.inFriendsChat = inFriendsChat;
+            stateVersion++;
+        }
+    }
+
+    void setChatMode(@Nullable ChatChannel chatMode) {
+        if (chatMode != this.chatMode) {
+            this.chatMode = chatMode;
+            stateVersion++;
+        }
+    }
+
+    void setGroupIronman(boolean groupIronman) {
+        if (groupIronman != this.groupIronman) {
+            this.groupIronman = groupIronman;
+            stateVersion++;
+        }
+    }
+
+    /**
+     * Forget the chat state and the last rendered text
+     */
+    void reset() {
+        chatPanel = null;
+        inFriendsChat = false;
+        chatMode = null;
+        groupIronman = false;
+        renderedText = null;
+        stateVersion++;
+    }
+
+    /**
+     * Decide which channel a message is sent to, the result is available from {@link #getResolvedChannel()} and
+     * {@link #getResolvedReason()}. Requires the chat panel to be known.
+     *
+     * @param prefix Prefix of the message
+     * @param table  Chat channel table for the current Slash Swapper settings
+     * @return Whether the last result was reused, because neither prefix nor state changed
+     */
+    boolean resolve(MessagePrefix prefix, ChatChannelTable table) {
+        // Most keystrokes only extend the message, reuse the last result if neither prefix nor state changed
+        if (prefix == resolvedPrefix && resolvedStateVersion == stateVersion && resolvedTable == table) {
+            return true;
+        }
+
+        int index = ChatChannelTable.index(prefix, chatPanel, inFriendsChat, chatMode, groupIronman);
+        resolvedChannel = table.getChannel(index);
+        resolvedReason = table.getReason(index);
+        resolvedPrefix = prefix;
+        resolvedStateVersion = stateVersion;
+        resolvedTable = table;
+        return false;
+    }
+
+    /**
+     * Recolor the typed text in the chat input
+     *
+     * @param input      Text the chat input widget shows
+     * @param nameLength Length of the player name at the start of the input
+     * @param typedText  Chat input text typed by the player
+     * @param channel    Chat channel that the typed text will be sent to
+     * @param color      Packed RGB color of the chat channel
+     * @return Recolored chat input text, or null if the input already shows the same result
+     */
+    @Nullable
+    String render(String input, int nameLength, String typedText, ChatChannel channel, int color) {
+        if (input.equals(renderedText)
+            && typedText.equals(renderedTypedText)
+            && channel == renderedChannel
+            && color == renderedColor) {
+            return null;
+        }
+
+        renderedText = renderer.render(input, nameLength, typedText, channel, color);
+        renderedTypedText = typedText;
+        renderedChannel = channel;
+        renderedColor = color;
+        return renderedText;
+    }
+}
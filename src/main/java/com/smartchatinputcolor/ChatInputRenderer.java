@@ -0,0 +1,44 @@
+package com.smartchatinputcolor;
+
+import net.runelite.client.util.ColorUtil;
+
+/**
+ * Builds the recolored chat input text. The buffer and the color tags of every channel are reused between renders,
+ * so the only allocation per render is the resulting string. Color tags are only rebuilt when a channel color changes.
+ */
+class ChatInputRenderer {
+    private final StringBuilder builder = new StringBuilder(128);
+
+    private final IncrementalEscaper escaper = new IncrementalEscaper();
+
+    private final String[] colorTags = new String[ChatChannel.values().length];
+
+    private final int[] colorTagColors = new int[ChatChannel.values().length];
+
+    /**
+     * Render the chat input, equivalent to {@code name + ": " + wrapWithColorTag(escapeJagex(typedText) + "*", color)}
+     *
+     * @param input      Current text of the chat input widget, starting with the player name
+     * @param nameLength Length of the player name at the start of the input
+     * @param typedText  Text typed by the player
+     * @param channel    Chat channel that the typed text will be sent to
+     * @param color      Packed RGB color of the chat channel
+     * @return Recolored chat input text
+     */
+    String render(String input, int nameLength, String typedText, ChatChannel channel, int color) {
+        builder.setLength(0);
+        builder.append(input, 0, nameLength).append(": ").append(getColorTag(channel, color));
+        builder.append(escaper.escape(typedText));
+        builder.append('*').append(ColorUtil.CLOSING_COLOR_TAG);
+        return builder.toString();
+    }
+
+    private String getColorTag(ChatChannel channel, int color) {
+        int index = channel.ordinal();
+        if (colorTags[index] == null || colorTagColors[index] != color) {
+            colorTags[index] = String.format("<col=%06x>", color);
+            colorTagColors[index] = color;
+        }
+        return colorTags[index];
+    }
+}
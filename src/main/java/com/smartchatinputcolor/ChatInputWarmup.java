@@ -0,0 +1,82 @@
+package com.smartchatinputcolor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the code that recolors the chat input on every keystroke against synthetic input, so the JIT compiler has
+ * compiled it before the player starts typing. It uses its own {@link ChatInputRecolorer}, the same code the plugin
+ * resolves and renders with, so it doesn't touch client state or widgets and can run on any thread.
+ */
+class ChatInputWarmup implements Runnable {
+    // Enough calls for the hot methods to be compiled by the optimizing compiler
+    private static final int ITERATIONS = 20_000;
+
+    // The executor is shared with other plugins, so the warm-up runs as many short tasks instead of one long one
+    private static final int ITERATIONS_PER_TASK = 1_000;
+
+    private static final String NAME = "Zezima";
+
+    private static final String[] TYPED_TEXTS = {
+        "", "h", "hello", "hello there <3", "/", "//gz", "///hi", "////hi",
+        "/p hi", "/f hi", "/@chi", "/gc hi", "/@ghi",
+    };
+
+    private static final ChatPanel[] CHAT_PANELS = ChatPanel.values();
+
+    private static final ChatChannel[] CHAT_CHANNELS = ChatChannel.values();
+
+    private static final SlashSwapperMode[] SLASH_SWAPPER_MODES = SlashSwapperMode.values();
+
+    private final Executor executor;
+
+    private final ChatInputRecolorer recolorer = new ChatInputRecolorer();
+
+    private ChatChannelTable table;
+
+    private final String[] inputs = new String[TYPED_TEXTS.length];
+
+    private int iteration;
+
+    // Keeps the results alive, so the work isn't optimized away
+    @SuppressWarnings("unused")
+    private volatile int sink;
+
+    /**
+     * @param executor Executor that runs the rest of the warm-up after each task
+     */
+    ChatInputWarmup(Executor executor) {
+        this.executor = executor;
+        for (int i = 0; i < TYPED_TEXTS.length; i++) {
+            inputs[i] = NAME + ": " + TYPED_TEXTS[i] + "*";
+        }
+    }
+
+    @Override
+    public void run() {
+        int end = Math.min(iteration + ITERATIONS_PER_TASK, ITERATIONS);
+        int result = 0;
+        for (; iteration < end; iteration++) {
+            int i = iteration;
+            // Change the state now and then, so both cached and newly resolved channels are warmed up
+            if (i % TYPED_TEXTS.length == 0) {
+                recolorer.setChatPanel(CHAT_PANELS[i % CHAT_PANELS.length]);
+                recolorer.setInFriendsChat(i % 2 == 0);
+                recolorer.setChatMode(i % 7 == 0 ? null : CHAT_CHANNELS[i % CHAT_CHANNELS.length]);
+                recolorer.setGroupIronman(i % 3 == 0);
+                table = ChatChannelTable.forMode(SLASH_SWAPPER_MODES[i % SLASH_SWAPPER_MODES.length]);
+            }
+
+            String typedText = TYPED_TEXTS[i % TYPED_TEXTS.length];
+            recolorer.resolve(MessagePrefix.fromText(typedText), table);
+            ChatChannel channel = recolorer.getResolvedChannel();
+            int color = channel.getTransparentDefaultColor().getRGB() & 0xFFFFFF;
+            String text = recolorer.render(inputs[i % inputs.length], NAME.length(), typedText, channel, color);
+            result += text == null ? 0 : text.length();
+        }
+        sink = result;
+
+        if (iteration < ITERATIONS) {
+            executor.execute(this);
+        }
+    }
+}
@@ -17,12 +17,21 @@ enum ChatPanel {
 
     private final int varClientIntValue;
 
-    public static ChatPanel fromVarClientInt(int varClientIntValue) {
+    // Chat panel of every var client int value except the one of NONE, indexed by that value
+    private static final ChatPanel[] varClientIntChatPanels = new ChatPanel[TRADE_OR_GIM.varClientIntValue + 1];
+
+    static {
         for (ChatPanel chatPanel : ChatPanel.values()) {
-            if (chatPanel.varClientIntValue == varClientIntValue) {
-                return chatPanel;
+            if (chatPanel != NONE) {
+                varClientIntChatPanels[chatPanel.varClientIntValue] = chatPanel;
             }
         }
-        return NONE;
+    }
+
+    public static ChatPanel fromVarClientInt(int varClientIntValue) {
+        if (varClientIntValue < 0 || varClientIntValue >= varClientIntChatPanels.length) {
+            return NONE;
+        }
+        return varClientIntChatPanels[varClientIntValue];
     }
 }
@@ -0,0 +1,40 @@
+package com.smartchatinputcolor;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Chat channel colors that were read from the RuneLite config off the client thread, waiting to be installed in the
+ * resolver on the client thread. Bits and colors are indexed like ChatChannelColors.
+ */
+@RequiredArgsConstructor
+@Getter
+class ColorConfigUpdate {
+    // Colors that were read
+    private final int changed;
+
+    // Colors that are set in the config, the others fall back to the in-game setting
+    private final int set;
+
+    private final int[] colors;
+
+    /**
+     * Combine with an update that was read later, colors read later replace the ones read earlier
+     *
+     * @param newer Update that was read later
+     * @return Combined update
+     */
+    ColorConfigUpdate merge(ColorConfigUpdate newer) {
+        int[] mergedColors = colors.clone();
+        for (int i = 0; i < mergedColors.length; i++) {
+            if ((newer.changed & 1 << i) != 0) {
+                mergedColors[i] = newer.colors[i];
+            }
+        }
+        return new ColorConfigUpdate(
+            changed | newer.changed,
+            (set & ~newer.changed) | newer.set,
+            mergedColors
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package com.smartchatinputcolor;
+
+/**
+ * Escapes tags in text the same way {@link net.runelite.client.util.Text#escapeJagex(String)} does, but keeps the
+ * escaped form of the previous text. Typing almost always appends or removes characters at the end, so only the part
+ * after the prefix shared with the previous text has to be escaped again.
+ */
+class IncrementalEscaper {
+    private final StringBuilder escaped = new StringBuilder(128);
+
+    // Length of the escaped text after each number of characters of the original text
+    private int[] escapedLengths = new int[129];
+
+    private String text = "";
+
+    /**
+     * Escape the text, reusing the escaped form of the prefix it shares with the previously escaped text
+     *
+     * @param text Text to escape
+     * @return Escaped text, only valid until the next call
+     */
+    CharSequence escape(String text) {
+        int sharedLength = sharedPrefixLength(this.text, text);
+        escaped.setLength(escapedLengths[sharedLength]);
+
+        if (escapedLengths.length <= text.length()) {
+            int[] lengths = new int[Math.max(text.length() + 1, escapedLengths.length * 2)];
+            System.arraycopy(escapedLengths, 0, lengths, 0, sharedLength + 1);
+            escapedLengths = lengths;
+        }
+
+        for (int i = sharedLength; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                escaped.append("<lt>");
+            } else if (c == '>') {
+                escaped.append("<gt>");
+            } else if (c == '\n') {
+                escaped.append("<br>");
+            } else if (c != '\r') {
+                escaped.append(c);
+            }
+            escapedLengths[i + 1] = escaped.length();
+        }
+
+        this.text = text;
+        return escaped;
+    }
+
+    private static int sharedPrefixLength(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        if (a == b) {
+            return length;
+        }
+
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
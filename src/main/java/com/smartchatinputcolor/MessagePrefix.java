@@ -0,0 +1,118 @@
+package com.smartchatinputcolor;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+
+/**
+ * Classification of the prefix a chat message starts with.
+ * Only the first few characters of a message decide where it is sent, so the whole message never has to be scanned.
+ */
+@RequiredArgsConstructor
+@Getter
+enum MessagePrefix {
+    // No prefix at all
+    NONE(null, 0),
+    // "/p " or "/@p"
+    PUBLIC(ChatChannel.PUBLIC, 0),
+    // "/f" or "/@f"
+    FRIEND(ChatChannel.FRIEND, 0),
+    // "/c " or "/@c"
+    CLAN(ChatChannel.CLAN, 0),
+    // "/gc " or "/@gc"
+    GUEST(ChatChannel.GUEST, 0),
+    // "/g "
+    GIM(ChatChannel.GIM, 0),
+    // "/@g" followed by anything but "c"
+    GIM_AT(ChatChannel.GIM, 0),
+    // One slash that is not followed by one of the prefixes above
+    SLASH_1(null, 1),
+    SLASH_2(null, 2),
+    SLASH_3(null, 3),
+    // Four or more slashes
+    SLASH_4(null, 4);
+
+    private static final MessagePrefix[] SLASH_RUNS = {NONE, SLASH_1, SLASH_2, SLASH_3, SLASH_4};
+
+    /**
+     * Chat channel the prefix explicitly points to, or null for slash prefixes
+     */
+    @Nullable
+    private final ChatChannel channel;
+
+    /**
+     * Number of leading slashes that decide the channel, only used when there is no explicit channel
+     */
+    private final int slashCount;
+
+    /**
+     * Classify the prefix of the input text in a single pass over at most the first five characters
+     *
+     * @param text Chat input text typed by the player
+     * @return Prefix that the text starts with
+     */
+    static MessagePrefix fromText(String text) {
+        int length = text.length();
+        if (length == 0 || text.charAt(0) != '/') {
+            return NONE;
+        }
+
+        if (length == 1) {
+            return SLASH_1;
+        }
+
+        switch (text.charAt(1)) {
+            case '/':
+                int slashCount = 2;
+                while (slashCount < 4 && slashCount < length && text.charAt(slashCount) == '/') {
+                    slashCount++;
+                }
+                return SLASH_RUNS[slashCount];
+            case '@':
+                return fromAtPrefix(text, length);
+            case 'f':
+                return FRIEND;
+            case 'p':
+                return isSpaceAt(text, length, 2) ? PUBLIC : SLASH_1;
+            case 'c':
+                return isSpaceAt(text, length, 2) ? CLAN : SLASH_1;
+            case 'g':
+                if (isSpaceAt(text, length, 2)) {
+                    return GIM;
+                }
+                return length > 3 && text.charAt(2) == 'c' && text.charAt(3) == ' ' ? GUEST : SLASH_1;
+        }
+
+        return SLASH_1;
+    }
+
+    /**
+     * Classify the prefix of text starting with "/@"
+     */
+    private static MessagePrefix fromAtPrefix(String text, int length) {
+        if (length == 2) {
+            return SLASH_1;
+        }
+
+        switch (text.charAt(2)) {
+            case 'p':
+                return PUBLIC;
+            case 'f':
+                return FRIEND;
+            case 'c':
+                return CLAN;
+            case 'g':
+                if (length == 3) {
+                    return SLASH_1;
+                }
+                return text.charAt(3) == 'c' ? GUEST : GIM_AT;
+        }
+
+        return SLASH_1;
+    }
+
+    private static boolean isSpaceAt(String text, int length, int index) {
+        return index < length && text.charAt(index) == ' ';
+    }
+}
@@ -0,0 +1,45 @@
+package com.smartchatinputcolor;
+
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+import javax.inject.Inject;
+import java.awt.*;
+
+/**
+ * Debug overlay showing what recoloring the chat input costs
+ */
+class PerformanceOverlay extends OverlayPanel {
+    private final PerformanceStats stats;
+
+    @Inject
+    PerformanceOverlay(PerformanceStats stats) {
+        this.stats = stats;
+        setPosition(OverlayPosition.TOP_LEFT);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        panelComponent.getChildren().add(TitleComponent.builder().text("Smart Chat Input Color").build());
+        addLine("Recolors", stats.getRecolors());
+        addLine("Coalesced recolors", stats.getCoalescedRecolors());
+        addLine("Skipped writes", stats.getSkippedWidgetWrites());
+        addLine("Resolver hits", stats.getResolverHits());
+        addLine("Resolver misses", stats.getResolverMisses());
+        addLine("Color repopulations", stats.getColorRepopulations());
+        addLine("Recolor p50", "< " + stats.getRecolorLatencyPercentileMicros(50) + " µs");
+        addLine("Recolor p99", "< " + stats.getRecolorLatencyPercentileMicros(99) + " µs");
+        addLine("Recolor max", stats.getMaxRecolorNanos() / 1000 + " µs");
+        return super.render(graphics);
+    }
+
+    private void addLine(String name, long value) {
+        addLine(name, Long.toString(value));
+    }
+
+    private void addLine(String name, String value) {
+        panelComponent.getChildren().add(LineComponent.builder().left(name).right(value).build());
+    }
+}
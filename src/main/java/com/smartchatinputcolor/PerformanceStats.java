@@ -0,0 +1,86 @@
+package com.smartchatinputcolor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import javax.inject.Singleton;
+import java.util.Arrays;
+
+/**
+ * Counters and a recolor latency histogram, only recorded while the performance overlay is enabled. They are only
+ * updated and read on the client thread.
+ */
+@Singleton
+@Getter
+class PerformanceStats {
+    // Bucket i counts recolors that took less than 2^i microseconds, the last bucket counts everything slower
+    static final int LATENCY_BUCKETS = 16;
+
+    private long recolors;
+    private long coalescedRecolors;
+    private long resolverHits;
+    private long resolverMisses;
+    private long skippedWidgetWrites;
+    private long colorRepopulations;
+    private long maxRecolorNanos;
+
+    @Getter(AccessLevel.NONE)
+    private final long[] recolorLatencyBuckets = new long[LATENCY_BUCKETS];
+
+    void reset() {
+        recolors = 0;
+        coalescedRecolors = 0;
+        resolverHits = 0;
+        resolverMisses = 0;
+        skippedWidgetWrites = 0;
+        colorRepopulations = 0;
+        maxRecolorNanos = 0;
+        Arrays.fill(recolorLatencyBuckets, 0);
+    }
+
+    void recordRecolor(long nanos) {
+        recolors++;
+        maxRecolorNanos = Math.max(maxRecolorNanos, nanos);
+        // Divide by 1024 instead of 1000, close enough for a histogram
+        int bucket = 64 - Long.numberOfLeadingZeros(nanos >> 10);
+        recolorLatencyBuckets[Math.min(bucket, LATENCY_BUCKETS - 1)]++;
+    }
+
+    void recordCoalescedRecolors(int count) {
+        coalescedRecolors += count;
+    }
+
+    void recordResolverHit() {
+        resolverHits++;
+    }
+
+    void recordResolverMiss() {
+        resolverMisses++;
+    }
+
+    void recordSkippedWidgetWrite() {
+        skippedWidgetWrites++;
+    }
+
+    void recordColorRepopulation() {
+        colorRepopulations++;
+    }
+
+    /**
+     * Estimate a percentile of the recolor latency from the histogram
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Upper bound of the histogram bucket containing the percentile in microseconds
+     */
+    long getRecolorLatencyPercentileMicros(int percentile) {
+        long threshold = (recolors * percentile + 99) / 100;
+        long count = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            count += recolorLatencyBuckets[i];
+            if (count >= threshold) {
+                return 1L << i;
+            }
+        }
+        return 1L << (LATENCY_BUCKETS - 1);
+    }
+}
@@ -0,0 +1,22 @@
+package com.smartchatinputcolor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.smartchatinputcolor.Recolor")
+@Label("Recolor Chat Input")
+@Category("Smart Chat Input Color")
+@Description("Recoloring the text typed in the chat input")
+class RecolorEvent extends jdk.jfr.Event {
+    @Label("Channel")
+    String channel;
+
+    @Label("Input Length")
+    int inputLength;
+
+    @Label("Widget Write Skipped")
+    @Description("Whether the chat input widget already showed the recolored text")
+    boolean widgetWriteSkipped;
+}
@@ -0,0 +1,13 @@
+package com.smartchatinputcolor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.smartchatinputcolor.Repopulate")
+@Label("Repopulate Chat Colors")
+@Category("Smart Chat Input Color")
+@Description("Computing the color of every chat channel from RuneLite and in-game settings")
+class RepopulateEvent extends jdk.jfr.Event {
+}
@@ -0,0 +1,28 @@
+package com.smartchatinputcolor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.smartchatinputcolor.Resolve")
+@Label("Resolve Chat Channel")
+@Category("Smart Chat Input Color")
+@Description("Deciding which chat channel the typed text will be sent to")
+class ResolveEvent extends jdk.jfr.Event {
+    @Label("Channel")
+    String channel;
+
+    @Label("Message Prefix")
+    String prefix;
+
+    @Label("Reason")
+    @Description("Why the text will be sent to the channel")
+    String reason;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Input Length")
+    int inputLength;
+}
@@ -1,6 +1,9 @@
 package com.smartchatinputcolor;
 
-public enum SlashSwapperMode {
+/**
+ * State of the Slash Swapper plugin, which changes the slash prefixes
+ */
+enum SlashSwapperMode {
     OFF,
     ON,
     // Slash Swapper enabled with swap guest chat option enabled
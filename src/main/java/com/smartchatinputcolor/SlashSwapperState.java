@@ -0,0 +1,41 @@
+package com.smartchatinputcolor;
+
+import lombok.Getter;
+
+/**
+ * Slash Swapper settings together with the chat channel table that uses their slash prefixes. It is only ever replaced
+ * as a whole, so the table always matches the settings, no matter which thread reports a change.
+ */
+@Getter
+class SlashSwapperState {
+    static final SlashSwapperState DISABLED = new SlashSwapperState(false, false);
+
+    private final boolean enabled;
+
+    // Whether the option to swap clan and guest chat prefixes is enabled
+    private final boolean guestChat;
+
+    private final ChatChannelTable channelTable;
+
+    SlashSwapperState(boolean enabled, boolean guestChat) {
+        this.enabled = enabled;
+        this.guestChat = guestChat;
+        this.channelTable = ChatChannelTable.forMode(getMode());
+    }
+
+    SlashSwapperMode getMode() {
+        if (!enabled) {
+            return SlashSwapperMode.OFF;
+        }
+
+        return guestChat ? SlashSwapperMode.ON_SWAP_GUEST_CHAT : SlashSwapperMode.ON;
+    }
+
+    SlashSwapperState withEnabled(boolean enabled) {
+        return new SlashSwapperState(enabled, guestChat);
+    }
+
+    SlashSwapperState withGuestChat(boolean guestChat) {
+        return new SlashSwapperState(enabled, guestChat);
+    }
+}
@@ -0,0 +1,28 @@
+package com.smartchatinputcolor;
+
+import net.runelite.client.config.Config;
+import net.runelite.client.config.ConfigGroup;
+import net.runelite.client.config.ConfigItem;
+
+@ConfigGroup(SmartChatInputColorConfig.GROUP)
+public interface SmartChatInputColorConfig extends Config {
+    String GROUP = "smartchatinputcolor";
+
+    @ConfigItem(
+        keyName = "performanceOverlay",
+        name = "Performance overlay",
+        description = "Show how often the chat input is recolored and how long it takes, for debugging"
+    )
+    default boolean performanceOverlay() {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "warmUp",
+        name = "Warm up on start",
+        description = "Prepare recoloring in the background on start, so the first message typed is not slower"
+    )
+    default boolean warmUp() {
+        return false;
+    }
+}
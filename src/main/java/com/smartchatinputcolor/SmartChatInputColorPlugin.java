@@ -1,12 +1,12 @@
 package com.smartchatinputcolor;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Provides;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.ScriptID;
 import net.runelite.api.VarClientStr;
-import net.runelite.api.annotations.Varp;
 import net.runelite.api.events.*;
 import net.runelite.api.gameval.InterfaceID;
 import net.runelite.api.gameval.VarbitID;
@@ -19,19 +19,27 @@ import net.runelite.client.events.PluginChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.plugins.PluginManager;
-import net.runelite.client.util.ColorUtil;
-import net.runelite.client.util.Text;
+import net.runelite.client.ui.overlay.OverlayManager;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
-import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @PluginDescriptor(name = "Smart Chat Input Color")
 public class SmartChatInputColorPlugin extends Plugin {
 
+    private static final ChatChannel[] CHAT_CHANNELS = ChatChannel.values();
+
+    private static final String STATE_SNAPSHOT_KEY = "stateSnapshot";
+
+    // Flight Recorder events are only created when the Java runtime includes it,
+    // when the events aren't enabled in a recording the JIT compiler removes them
+    private static final boolean FLIGHT_RECORDER_AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
     @Inject
     private Client client;
 
@@ -44,37 +52,174 @@ public class SmartChatInputColorPlugin extends Plugin {
     @Inject
     private ClientThread clientThread;
 
-    private ChatPanel selectedChatPanel;
+    @Inject
+    private ScheduledExecutorService executor;
+
+    @Inject
+    private SmartChatInputColorConfig config;
+
+    @Inject
+    private OverlayManager overlayManager;
+
+    @Inject
+    private ChatColorResolver colorResolver;
+
+    @Inject
+    private PerformanceOverlay performanceOverlay;
+
+    @Inject
+    private PerformanceStats performanceStats;
+
+    // Only set while the performance overlay is enabled, so nothing is recorded otherwise. Set on the plugin manager
+    // thread when starting or stopping, but recorded on the client thread.
+    @Nullable
+    private volatile PerformanceStats stats;
 
-    private ChatChannel friendsChatChannel;
+    // Chat state, the resolved chat channel and the last text set on the chat input widget
+    private final ChatInputRecolorer recolorer = new ChatInputRecolorer();
 
     private boolean hoppingWorlds;
 
     private boolean shouldInitialize;
 
-    private final Map<ChatChannel, Color> channelColorMap = new HashMap<>();
+    // Cleared when stopping, so work that was queued before that doesn't change anything once stopped
+    private volatile boolean started;
+
+    // Number of changes that affect the chat input since the last recolor, the recolor happens once before the next
+    // frame. Requests come from any thread, the coalesced ones are only recorded on the client thread.
+    private final AtomicInteger recolorRequests = new AtomicInteger();
+
+    // Replaced as a whole when Slash Swapper changes, which isn't always reported on the client thread
+    private final AtomicReference<SlashSwapperState> slashSwapper = new AtomicReference<>(SlashSwapperState.DISABLED);
+
+    // Config changes that still have to be applied. Profile switches change many config keys at once, these are
+    // collected so the whole burst is read in a single background task and installed in a single client thread turn.
+    private final AtomicBoolean configChangesScheduled = new AtomicBoolean();
+
+    // Bit for every color that changed, indexed like ChatChannelColors
+    private final AtomicInteger changedColorConfigs = new AtomicInteger();
+
+    // Colors read in the background that still have to be installed on the client thread
+    private final AtomicReference<ColorConfigUpdate> pendingColorConfig = new AtomicReference<>();
+
+    private final ChatChannelColors channelColors = new ChatChannelColors();
+
+    private boolean transparentChatbox;
+
+    // Snapshot that was last saved or loaded for the current account, to avoid saving the same snapshot again
+    @Nullable
+    private String savedStateSnapshot;
+
+    @Provides
+    SmartChatInputColorConfig provideConfig(ConfigManager configManager) {
+        return configManager.getConfig(SmartChatInputColorConfig.class);
+    }
 
     @Override
     protected void startUp() {
         log.debug("Smart Chat Input Color starting!");
+        started = true;
+        configureSlashPrefixes();
+
         if (client.getGameState() == GameState.LOGGED_IN) {
-            shouldInitialize = true;
+            scheduleInitialize();
+        }
+
+        if (config.performanceOverlay()) {
+            setPerformanceOverlayEnabled(true);
+        }
+
+        if (config.warmUp()) {
+            executor.execute(new ChatInputWarmup(executor));
         }
     }
 
     @Override
     protected void shutDown() {
         log.debug("Smart Chat Input Color stopping!");
+        started = false;
+        saveStateSnapshot();
         // Reset when stopping plugin
-        selectedChatPanel = null;
-        friendsChatChannel = null;
-        channelColorMap.clear();
+        shouldInitialize = false;
+        recolorer.reset();
+        recolorRequests.set(0);
+        changedColorConfigs.set(0);
+        configChangesScheduled.set(false);
+        pendingColorConfig.set(null);
+        colorResolver.invalidateAll();
+        setPerformanceOverlayEnabled(false);
+    }
+
+    /**
+     * Start or stop recording performance stats and showing them in an overlay
+     *
+     * @param enabled Whether the performance overlay should be enabled
+     */
+    private void setPerformanceOverlayEnabled(boolean enabled) {
+        if (enabled) {
+            performanceStats.reset();
+            stats = performanceStats;
+            overlayManager.add(performanceOverlay);
+        } else {
+            stats = null;
+            overlayManager.remove(performanceOverlay);
+        }
+    }
+
+    /**
+     * Recolor the text typed in the chat before the next frame is rendered. Multiple requests in the same frame result
+     * in a single recolor. Can be called from any thread.
+     */
+    private void requestRecolor() {
+        recolorRequests.incrementAndGet();
     }
 
     /**
      * Recolor the text typed in the chat, based on the channel that the message will be sent to
      */
-    private void recolorChatTypedText() {
+    @VisibleForTesting
+    void recolorChatTypedText() {
+        // This recolor uses the latest state, so the requested recolors don't have to happen anymore
+        int requests = recolorRequests.getAndSet(0);
+
+        // The event is filled in while rendering, before it is known whether it will be committed.
+        // Only keep it while it is recorded, so nothing is filled in when it isn't.
+        RecolorEvent event = FLIGHT_RECORDER_AVAILABLE ? new RecolorEvent() : null;
+        if (event != null && !event.isEnabled()) {
+            event = null;
+        }
+        if (event != null) {
+            event.begin();
+        }
+
+        PerformanceStats stats = this.stats;
+        if (stats == null) {
+            renderChatTypedText(event);
+        } else {
+            // Every request after the first one since the last recolor was coalesced into this recolor
+            if (requests > 1) {
+                stats.recordCoalescedRecolors(requests - 1);
+            }
+            long start = System.nanoTime();
+            renderChatTypedText(event);
+            stats.recordRecolor(System.nanoTime() - start);
+        }
+
+        if (event != null) {
+            event.commit();
+        }
+    }
+
+    /**
+     * @param event Flight Recorder event to fill in, or null if it isn't enabled
+     */
+    private void renderChatTypedText(@Nullable RecolorEvent event) {
+        // Without a state snapshot nothing is known about the chat until initialized, vars that arrive before that
+        // request a recolor too
+        if (recolorer.getChatPanel() == null) {
+            return;
+        }
+
         Widget inputWidget = client.getWidget(InterfaceID.Chatbox.INPUT);
         if (inputWidget == null) {
             return;
@@ -90,10 +235,28 @@ public class SmartChatInputColorPlugin extends Plugin {
         if (colonIndex == -1) {
             return;
         }
-        String name = input.substring(0, colonIndex);
         String typedText = client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT);
-        Color chatColor = channelColorMap.get(deriveChatChannel(typedText));
-        inputWidget.setText(name + ": " + ColorUtil.wrapWithColorTag(Text.escapeJagex(typedText) + "*", chatColor));
+        ChatChannel channel = deriveChatChannel(typedText);
+        int color = channelColors.get(channel, transparentChatbox);
+        if (event != null) {
+            event.channel = channel.name();
+            event.inputLength = typedText.length();
+        }
+
+        String text = recolorer.render(input, colonIndex, typedText, channel, color);
+        if (text == null) {
+            // Setting the text invalidates the widget layout, it is skipped when the widget already shows the result
+            PerformanceStats stats = this.stats;
+            if (stats != null) {
+                stats.recordSkippedWidgetWrite();
+            }
+            if (event != null) {
+                event.widgetWriteSkipped = true;
+            }
+            return;
+        }
+
+        inputWidget.setText(text);
     }
 
     /**
@@ -104,188 +267,115 @@ public class SmartChatInputColorPlugin extends Plugin {
      */
     @VisibleForTesting
     ChatChannel deriveChatChannel(String text) {
-        // First check if the text starts with one of the prefixes
-        ChatChannel messagePrefixChannel = findChannelByMessagePrefix(text);
-        if (messagePrefixChannel != null) {
-            return messagePrefixChannel;
-        }
-
-        ChatChannel chatPanelChannel = getSelectedChatPanelChannel();
-        if (chatPanelChannel != ChatChannel.PUBLIC) {
-            return chatPanelChannel;
+        ResolveEvent event = FLIGHT_RECORDER_AVAILABLE ? new ResolveEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+
+        MessagePrefix prefix = MessagePrefix.fromText(text);
+        boolean cacheHit = recolorer.resolve(prefix, slashSwapper.get().getChannelTable());
+        // Read once, the overlay can be disabled from another thread while the plugin shuts down
+        PerformanceStats stats = this.stats;
+        if (stats != null) {
+            if (cacheHit) {
+                stats.recordResolverHit();
+            } else {
+                stats.recordResolverMiss();
+            }
         }
 
-        // If it didn't match a prefix, check if in a certain chat mode
-        int activeChatMode = client.getVarcIntValue(VarClientInt.ACTIVE_CHAT_MODE);
-        ChatChannel chatModeChannel = ChatChannel.fromChatModeVarClientInt(activeChatMode);
-        if (chatModeChannel == ChatChannel.FRIEND && friendsChatChannel == ChatChannel.PUBLIC) {
-            // It's possible to set chat mode to friends and then leave the channel.
-            // Messages sent in this mode go nowhere, but we have to pick a color, so we default to public.
-            // TODO: Add a separate channel / color for messages that don't go anywhere?
-            return ChatChannel.PUBLIC;
+        ChatChannel channel = recolorer.getResolvedChannel();
+        if (event != null && event.shouldCommit()) {
+            event.channel = channel.name();
+            event.prefix = prefix.name();
+            event.reason = recolorer.getResolvedReason().name();
+            event.cacheHit = cacheHit;
+            event.inputLength = text.length();
+            event.commit();
         }
-        // If a chat mode is active, return it
-        if (chatModeChannel != null) {
-            return chatModeChannel;
-        }
-
-        // This message isn't going anywhere according to the checks, send it to public by default
-        return ChatChannel.PUBLIC;
+        return channel;
     }
 
     /**
-     * Find the channel that a message would be sent to based on the prefix.
-     *
-     * @param text Chat message input
-     * @return Channel that the message would be sent to or null
+     * Update the transparent and opaque chat box color for each chat channel whose varp or config changed
      */
-    private ChatChannel findChannelByMessagePrefix(String text) {
-        // First check if the prefix regex matches
-        for (ChatChannel channel : ChatChannel.values()) {
-            if (channel.matchesPrefixRegex(text)) {
-                return getResultingChannel(channel, text);
-            }
+    @VisibleForTesting
+    void populateChatChannelColorMap() {
+        RepopulateEvent event = FLIGHT_RECORDER_AVAILABLE ? new RepopulateEvent() : null;
+        if (event != null) {
+            event.begin();
         }
 
-        // Check the slash prefix if there is no regex match
-        return getResultingChannel(ChatChannel.fromSlashPrefix(text), text);
-    }
+        PerformanceStats stats = this.stats;
+        if (stats != null) {
+            stats.recordColorRepopulation();
+        }
 
-    /**
-     * Compute the color of a chat channel based on RL and in-game settings
-     *
-     * @param channel Chat channel
-     * @return Color that the text should be colored for the given chat channel
-     */
-    private Color computeChannelColor(ChatChannel channel, boolean transparent) {
-        String colorConfigKey = channel.getColorConfigKey();
-        if (colorConfigKey != null) {
-            Color color = configManager.getConfiguration(
-                "textrecolor", (transparent ? "transparent" : "opaque") + colorConfigKey, Color.class);
-            if (color != null) {
-                return color;
+        for (ChatChannel c : CHAT_CHANNELS) {
+            if (colorResolver.refreshVarp(c, true)) {
+                populateChatChannelColor(c, true);
+            }
+            if (colorResolver.refreshVarp(c, false)) {
+                populateChatChannelColor(c, false);
             }
         }
 
-        int colorCode = client.getVarpValue(transparent ? channel.getTransparentVarpId() : channel.getOpaqueVarpId());
-        // Zero means there is no value set, return the default value for this channel
-        if (colorCode == 0) {
-            return transparent ? channel.getTransparentDefaultColor() : channel.getOpaqueDefaultColor();
+        if (event != null) {
+            event.commit();
         }
-
-        // Color code saved in the varp is offset by 1
-        return new Color(colorCode - 1);
     }
 
     /**
-     * Update the mapped color for each chat channel
+     * Forget all resolved colors, so the next update of the color map resolves every color again
      */
-    private void populateChatChannelColorMap() {
-        boolean transparent = client.isResized() && client.getVarbitValue(VarbitID.CHATBOX_TRANSPARENCY) == 1;
-        for (ChatChannel c : ChatChannel.values()) {
-            channelColorMap.put(c, computeChannelColor(c, transparent));
-        }
+    @VisibleForTesting
+    void invalidateColors() {
+        colorResolver.invalidateAll();
     }
 
     /**
-     * Set the chat channel that a message will be sent to if trying to send to friends channel
+     * Update the transparent or opaque chat box color for a chat channel
+     *
+     * @param channel     Chat channel
+     * @param transparent Whether to update the transparent chat box color
      */
-    private void setFriendsChatChannel(boolean isInFriendsChat) {
-        friendsChatChannel = isInFriendsChat ? ChatChannel.FRIEND : ChatChannel.PUBLIC;
+    private void populateChatChannelColor(ChatChannel channel, boolean transparent) {
+        channelColors.set(channel, transparent, colorResolver.resolve(channel, transparent));
     }
 
     /**
-     * Set the currently opened chat panel
+     * Check which colors to use, the chat box is only transparent in resizable mode with the transparency setting on
      */
-    private void setOpenChatPanel() {
-        selectedChatPanel = ChatPanel.fromVarClientInt(client.getVarcIntValue(VarClientInt.OPEN_CHAT_PANEL));
+    private void updateTransparentChatbox() {
+        transparentChatbox = client.isResized() && client.getVarbitValue(VarbitID.CHATBOX_TRANSPARENCY) == 1;
     }
 
     /**
-     * Find the resulting channel, keeping in mind whether the player is currently in a friends channel
-     *
-     * @param channel Chat channel trying to send the message to
-     * @return Chat channel that the message will really go to
+     * Set whether a message will be sent to the friends channel when trying to send to it
      */
-    @Nullable
-    private ChatChannel getResultingChannel(ChatChannel channel) {
-        if (channel == null) {
-            return null;
-        }
-
-        return channel == ChatChannel.FRIEND ? friendsChatChannel : channel;
+    private void setFriendsChatChannel(boolean isInFriendsChat) {
+        recolorer.setInFriendsChat(isInFriendsChat);
     }
 
     /**
-     * Find the resulting channel, checking whether the player is currently in a friends channel or has a GIM account
-     *
-     * @param channel Chat channel trying to send the message to
-     * @return Chat channel that the message will really go to
+     * Set the currently opened chat panel
      */
-    @Nullable
-    private ChatChannel getResultingChannel(ChatChannel channel, String text) {
-        if (channel == null) {
-            return null;
-        }
-
-        switch (channel) {
-            case FRIEND:
-                return friendsChatChannel;
-            case GIM:
-                return getGIMChatChannel(text);
-            default:
-                return channel;
-        }
+    private void setOpenChatPanel() {
+        recolorer.setChatPanel(ChatPanel.fromVarClientInt(client.getVarcIntValue(VarClientInt.OPEN_CHAT_PANEL)));
     }
 
-    /**
-     * Find the chat channel that a message will be sent to when trying to send to group ironman channel. If an account
-     * is a Group Ironman, the Group Ironman chat channel is available. Otherwise, a bit more logic is involved.
-     *
-     * @return Chat channel that the message will go to
-     */
-    private ChatChannel getGIMChatChannel(String text) {
-        if (isGroupIronman()) {
-            return ChatChannel.GIM;
-        }
-
-        if (text.startsWith("/g")) {
-            return getResultingChannel(ChatChannel.fromSlashCount(1));
-        }
-
-        if (text.startsWith("/@g")) {
-            return ChatChannel.CLAN;
-        }
-
-        if (text.startsWith("////")) {
-            return getResultingChannel(ChatChannel.fromSlashCount(3));
-        }
-
-        // This never happens because the string passed into this function
-        // will always start with one of the prefixes handled above
-        return ChatChannel.GIM;
+    private void setChatMode() {
+        recolorer.setChatMode(
+            ChatChannel.fromChatModeVarClientInt(client.getVarcIntValue(VarClientInt.ACTIVE_CHAT_MODE))
+        );
     }
 
-    /**
-     * Get the chat channel that a message should be sent to, based on the currently selected chat panel
-     *
-     * @return Chat channel that the message will go to
-     */
-    private ChatChannel getSelectedChatPanelChannel() {
-        switch (selectedChatPanel) {
-            case CHANNEL:
-                return friendsChatChannel;
-            case CLAN:
-                return ChatChannel.CLAN;
-            case TRADE_OR_GIM:
-                return isGroupIronman() ? ChatChannel.GIM : ChatChannel.PUBLIC;
-        }
-
-        return ChatChannel.PUBLIC;
+    private void setGroupIronman() {
+        recolorer.setGroupIronman(isGroupIronman(client.getVarbitValue(VarbitID.IRONMAN)));
     }
 
-    private boolean isGroupIronman() {
-        switch (client.getVarbitValue(VarbitID.IRONMAN)) {
+    private static boolean isGroupIronman(int ironmanVarbitValue) {
+        switch (ironmanVarbitValue) {
             case 4: // GIM
             case 5: // HCGIM
             case 6: // UGIM
@@ -295,28 +385,21 @@ public class SmartChatInputColorPlugin extends Plugin {
     }
 
     private boolean getSlashSwapperGuestChatConfig() {
-        return configManager.getConfiguration("slashswapper", "slashGuestChat", boolean.class);
+        // Not set when Slash Swapper has never been installed or the option was never changed
+        Boolean guestChat = configManager.getConfiguration("slashswapper", "slashGuestChat", boolean.class);
+        return guestChat != null && guestChat;
     }
 
     /**
-     * Configure up slash prefixes based on whether Slash Swapper is active
+     * Configure up slash prefixes based on whether Slash Swapper is active. This scans all plugins, so it is only done
+     * on start up, after that the Slash Swapper state is kept up to date by plugin and config change events.
      */
     private void configureSlashPrefixes() {
-        boolean slashSwapperEnabled = pluginManager
+        boolean enabled = pluginManager
             .getPlugins()
             .stream()
             .anyMatch(p -> p.getName().equals("Slash Swapper") && pluginManager.isPluginEnabled(p));
-
-        if (slashSwapperEnabled) {
-            useSlashSwapperPrefixes();
-            return;
-        }
-
-        ChatChannel.useDefaultSlashPrefixes();
-    }
-
-    private void useSlashSwapperPrefixes() {
-        ChatChannel.useSlashSwapperPrefixes(getSlashSwapperGuestChatConfig());
+        slashSwapper.set(new SlashSwapperState(enabled, getSlashSwapperGuestChatConfig()));
     }
 
     /**
@@ -326,11 +409,24 @@ public class SmartChatInputColorPlugin extends Plugin {
      */
     @Subscribe
     public void onScriptPostFired(ScriptPostFired scriptPostFired) {
+        // The script resets the chat input text, so it is recolored right away instead of before the next frame
         if (scriptPostFired.getScriptId() == ScriptID.CHAT_PROMPT_INIT) {
             recolorChatTypedText();
         }
     }
 
+    /**
+     * Do the recolor that was requested since the last frame
+     *
+     * @param ignored Before render event object
+     */
+    @Subscribe
+    public void onBeforeRender(BeforeRender ignored) {
+        if (recolorRequests.get() > 0) {
+            recolorChatTypedText();
+        }
+    }
+
     /**
      * Initialize after an account is logged in, but not when hopping worlds
      *
@@ -342,31 +438,110 @@ public class SmartChatInputColorPlugin extends Plugin {
             case HOPPING:
                 hoppingWorlds = true;
                 break;
+            case LOGIN_SCREEN:
+                // The next login can be another account
+                savedStateSnapshot = null;
+                break;
             case LOGGED_IN: {
                 if (hoppingWorlds) {
                     hoppingWorlds = false;
                     return;
                 }
-                shouldInitialize = true;
+                scheduleInitialize();
             }
         }
     }
 
     /**
-     * Initialize the plugin on the game tick after shouldInitialize is set, it requires Varbits / VarPlayers to be set
+     * Initialize the plugin as soon as the client thread finds the player loaded, instead of waiting for the next game
+     * tick. Initializing on the game tick is kept as a fallback.
+     */
+    private void scheduleInitialize() {
+        if (recolorer.getChatPanel() == null) {
+            // Nothing is known yet, color the input with the state from last time until initialized
+            loadStateSnapshot();
+        }
+
+        shouldInitialize = true;
+        clientThread.invoke(() -> {
+            if (!started || !shouldInitialize) {
+                // Stopped, or already initialized on a game tick
+                return true;
+            }
+            if (client.getGameState() != GameState.LOGGED_IN) {
+                // Logged out or loading again, initializing is scheduled again once logged in
+                return true;
+            }
+            // Most Varbits / VarPlayers are sent before the local player, retry on the next client thread turn until
+            // then. Vars that arrive later update the state and recolor through their change events.
+            if (client.getLocalPlayer() == null) {
+                return false;
+            }
+
+            initialize();
+            return true;
+        });
+    }
+
+    /**
+     * Initialize the plugin on the game tick after shouldInitialize is set, if that hasn't happened yet
      */
     @Subscribe
     public void onGameTick(GameTick ignored) {
-        if (!shouldInitialize) {
-            return;
+        if (shouldInitialize) {
+            initialize();
         }
+    }
 
+    /**
+     * Read all client state the plugin depends on, it requires Varbits / VarPlayers to be set. The state is compared
+     * with what is already known, so after a relog only what changed is derived again.
+     */
+    private void initialize() {
         setOpenChatPanel();
         setFriendsChatChannel(client.getFriendsChatManager() != null);
-        configureSlashPrefixes();
+        setChatMode();
+        setGroupIronman();
         populateChatChannelColorMap();
+        updateTransparentChatbox();
         shouldInitialize = false;
-        recolorChatTypedText();
+        requestRecolor();
+        saveStateSnapshot();
+    }
+
+    /**
+     * Use the state saved for the current account as provisional state, it is replaced once the plugin is initialized
+     */
+    private void loadStateSnapshot() {
+        String encoded = configManager.getRSProfileConfiguration(SmartChatInputColorConfig.GROUP, STATE_SNAPSHOT_KEY);
+        StateSnapshot snapshot = encoded == null ? null : StateSnapshot.decode(encoded);
+        savedStateSnapshot = encoded;
+        if (snapshot == null) {
+            return;
+        }
+
+        recolorer.setChatPanel(snapshot.getChatPanel());
+        transparentChatbox = snapshot.isTransparentChatbox();
+        channelColors.setAll(snapshot.getColors());
+        requestRecolor();
+    }
+
+    /**
+     * Save the state for the current account, if it has been initialized and changed since it was last saved
+     */
+    private void saveStateSnapshot() {
+        ChatPanel chatPanel = recolorer.getChatPanel();
+        if (shouldInitialize || chatPanel == null) {
+            return;
+        }
+
+        String encoded = new StateSnapshot(chatPanel, transparentChatbox, channelColors.toArray()).encode();
+        if (encoded.equals(savedStateSnapshot)) {
+            return;
+        }
+
+        configManager.setRSProfileConfiguration(SmartChatInputColorConfig.GROUP, STATE_SNAPSHOT_KEY, encoded);
+        savedStateSnapshot = encoded;
     }
 
     /**
@@ -377,21 +552,94 @@ public class SmartChatInputColorPlugin extends Plugin {
     @Subscribe
     public void onConfigChanged(ConfigChanged configChanged) {
         String configGroup = configChanged.getGroup();
-        if (configGroup.equals("slashswapper")) {
+        if (configGroup.equals(SmartChatInputColorConfig.GROUP)
+            && configChanged.getKey().equals("performanceOverlay")) {
             clientThread.invoke(() -> {
-                configureSlashPrefixes();
-                recolorChatTypedText();
+                if (started) {
+                    setPerformanceOverlayEnabled(config.performanceOverlay());
+                }
             });
         }
 
+        if (configGroup.equals("slashswapper") && configChanged.getKey().equals("slashGuestChat")) {
+            // Tables of all modes are compiled already, so this only swaps the state and can be done right away
+            boolean guestChat = Boolean.parseBoolean(configChanged.getNewValue());
+            slashSwapper.updateAndGet(state -> state.withGuestChat(guestChat));
+            requestRecolor();
+        }
+
         if (configGroup.equals("textrecolor")) {
-            clientThread.invoke(() -> {
-                populateChatChannelColorMap();
-                recolorChatTypedText();
-            });
+            // Only recompute the color that was changed, ignore colors of other chat messages
+            String key = configChanged.getKey();
+            ChatChannel channel = ChatChannel.fromColorConfigKey(key);
+            if (channel == null) {
+                return;
+            }
+
+            boolean transparent = key.equals(channel.getColorConfigKey(true));
+            int bit = 1 << ChatChannelColors.index(channel, transparent);
+            changedColorConfigs.getAndUpdate(changed -> changed | bit);
+            scheduleConfigChanges();
+        }
+    }
+
+    /**
+     * Apply the collected config changes in the background, unless that is already scheduled
+     */
+    private void scheduleConfigChanges() {
+        if (configChangesScheduled.compareAndSet(false, true)) {
+            executor.execute(this::readConfigChanges);
         }
     }
 
+    /**
+     * Read all config changes collected since the last time off the client thread, the client thread only has to
+     * install the results
+     */
+    private void readConfigChanges() {
+        if (!started) {
+            // Stopped after this was scheduled, the changes were dropped
+            return;
+        }
+
+        // Changes made from here on schedule a new task
+        configChangesScheduled.set(false);
+
+        int changed = changedColorConfigs.getAndSet(0);
+        if (changed == 0) {
+            return;
+        }
+
+        ColorConfigUpdate update = colorResolver.readConfig(changed);
+        pendingColorConfig.accumulateAndGet(update, (pending, newer) -> pending == null ? newer : pending.merge(newer));
+        clientThread.invoke(this::installConfigChanges);
+    }
+
+    /**
+     * Install the colors that were read in the background, and recolor once for all of them
+     */
+    private void installConfigChanges() {
+        if (!started) {
+            // Stopped after this was scheduled, the colors may still have been read while stopping
+            return;
+        }
+
+        ColorConfigUpdate update = pendingColorConfig.getAndSet(null);
+        if (update == null) {
+            // Installed together with an earlier update
+            return;
+        }
+
+        colorResolver.install(update);
+        for (int changed = update.getChanged(); changed != 0; changed &= changed - 1) {
+            int index = Integer.numberOfTrailingZeros(changed);
+            populateChatChannelColor(CHAT_CHANNELS[index / 2], index % 2 == 1);
+        }
+
+        requestRecolor();
+        saveStateSnapshot();
+    }
+
     /**
      * Update chat channel color map when Slash Swapper is turned on or off
      *
@@ -404,13 +652,9 @@ public class SmartChatInputColorPlugin extends Plugin {
             return;
         }
 
-        if (pluginManager.isPluginEnabled(plugin)) {
-            useSlashSwapperPrefixes();
-        } else {
-            ChatChannel.useDefaultSlashPrefixes();
-        }
-
-        recolorChatTypedText();
+        boolean enabled = pluginManager.isPluginEnabled(plugin);
+        slashSwapper.updateAndGet(state -> state.withEnabled(enabled));
+        requestRecolor();
     }
 
     /**
@@ -420,31 +664,61 @@ public class SmartChatInputColorPlugin extends Plugin {
      */
     @Subscribe
     public void onVarbitChanged(VarbitChanged varbitChanged) {
+        int varbitId = varbitChanged.getVarbitId();
+        if (varbitId == VarbitID.IRONMAN) {
+            setGroupIronman();
+            requestRecolor();
+            return;
+        }
+
         // Check if the setting for transparent chat box changed
-        if (varbitChanged.getVarbitId() == VarbitID.CHATBOX_TRANSPARENCY) {
-            populateChatChannelColorMap();
+        if (varbitId == VarbitID.CHATBOX_TRANSPARENCY) {
+            updateTransparentChatbox();
+            requestRecolor();
             return;
         }
 
-        // Check if any of the chat channel colours was changed
-        @Varp int varPlayerId = varbitChanged.getVarpId();
-        for (ChatChannel channel : ChatChannel.values()) {
-            if (varPlayerId == channel.getOpaqueVarpId() || varPlayerId == channel.getTransparentVarpId()) {
-                populateChatChannelColorMap();
-                return;
-            }
+        // Check if one of the chat channel colours was changed, this event fires for every var so keep it cheap
+        int varpId = varbitChanged.getVarpId();
+        ChatChannel channel = ChatChannel.fromColorVarp(varpId);
+        if (channel == null) {
+            return;
+        }
+
+        boolean transparent = varpId == channel.getTransparentVarpId();
+        if (colorResolver.invalidateVarp(channel, transparent)) {
+            populateChatChannelColor(channel, transparent);
+            // Vars can arrive after initializing, the input has to show the color that arrived late
+            requestRecolor();
+            saveStateSnapshot();
         }
     }
 
     /**
-     * Update selected chat panel when a new chat panel is opened
+     * Switch between transparent and opaque colors when the client switches between fixed and resizable mode
+     *
+     * @param resizeableChanged Resizeable changed event object
+     */
+    @Subscribe
+    public void onResizeableChanged(ResizeableChanged resizeableChanged) {
+        updateTransparentChatbox();
+        requestRecolor();
+    }
+
+    /**
+     * Update selected chat panel when a new chat panel is opened, or the chat mode is changed
      *
      * @param varClientIntChanged VarClientInt changed event object
      */
     @Subscribe
     public void onVarClientIntChanged(VarClientIntChanged varClientIntChanged) {
-        if (varClientIntChanged.getIndex() == VarClientInt.OPEN_CHAT_PANEL) {
+        int index = varClientIntChanged.getIndex();
+        if (index == VarClientInt.OPEN_CHAT_PANEL) {
             setOpenChatPanel();
+            requestRecolor();
+        } else if (index == VarClientInt.ACTIVE_CHAT_MODE) {
+            setChatMode();
+            requestRecolor();
         }
     }
 
@@ -456,6 +730,6 @@ public class SmartChatInputColorPlugin extends Plugin {
     @Subscribe
     public void onFriendsChatChanged(FriendsChatChanged friendsChatChanged) {
         setFriendsChatChannel(friendsChatChanged.isJoined());
-        recolorChatTypedText();
+        requestRecolor();
     }
 }
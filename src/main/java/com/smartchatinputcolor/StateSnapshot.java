@@ -0,0 +1,72 @@
+package com.smartchatinputcolor;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+
+/**
+ * State of the plugin that is saved for each account, so the chat input can be colored right after logging in,
+ * before the state is read from the client again
+ */
+@RequiredArgsConstructor
+@Getter
+class StateSnapshot {
+    // Increment when the format changes, snapshots of other versions are ignored
+    private static final String VERSION = "1";
+
+    private static final int COLOR_COUNT = ChatChannel.values().length * 2;
+
+    private final ChatPanel chatPanel;
+
+    private final boolean transparentChatbox;
+
+    // Packed RGB colors, indexed like ChatChannelColors
+    private final int[] colors;
+
+    /**
+     * @return Snapshot as a string that can be stored in the config
+     */
+    String encode() {
+        StringBuilder builder = new StringBuilder(16 + COLOR_COUNT * 7)
+            .append(VERSION).append(';')
+            .append(chatPanel.name()).append(';')
+            .append(transparentChatbox ? '1' : '0').append(';');
+        for (int i = 0; i < colors.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(Integer.toHexString(colors[i]));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param encoded Snapshot created by {@link #encode()}
+     * @return Decoded snapshot, or null if it is invalid or from another version
+     */
+    @Nullable
+    static StateSnapshot decode(String encoded) {
+        String[] parts = encoded.split(";", -1);
+        if (parts.length != 4 || !parts[0].equals(VERSION)) {
+            return null;
+        }
+
+        String[] colorParts = parts[3].split(",", -1);
+        if (colorParts.length != COLOR_COUNT) {
+            return null;
+        }
+
+        try {
+            ChatPanel chatPanel = ChatPanel.valueOf(parts[1]);
+            int[] colors = new int[COLOR_COUNT];
+            for (int i = 0; i < COLOR_COUNT; i++) {
+                colors[i] = Integer.parseInt(colorParts[i], 16) & 0xFFFFFF;
+            }
+            return new StateSnapshot(chatPanel, parts[2].equals("1"), colors);
+        } catch (IllegalArgumentException e) {
+            // Also thrown for invalid numbers
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.smartchatinputcolor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ChatInputRecolorerTest {
+    @Test
+    public void testResolveReusesResultUntilStateChanges() {
+        ChatInputRecolorer recolorer = new ChatInputRecolorer();
+        ChatChannelTable table = ChatChannelTable.forMode(SlashSwapperMode.OFF);
+        recolorer.setChatPanel(ChatPanel.ALL);
+
+        assertFalse(recolorer.resolve(MessagePrefix.fromText("/f hi"), table));
+        assertEquals(ChatChannel.PUBLIC, recolorer.getResolvedChannel());
+        assertTrue(recolorer.resolve(MessagePrefix.fromText("/f hello"), table));
+
+        recolorer.setInFriendsChat(true);
+        assertFalse(recolorer.resolve(MessagePrefix.fromText("/f hello"), table));
+        assertEquals(ChatChannel.FRIEND, recolorer.getResolvedChannel());
+
+        // Setting the same state again keeps the result
+        recolorer.setInFriendsChat(true);
+        assertTrue(recolorer.resolve(MessagePrefix.fromText("/f hello"), table));
+    }
+
+    @Test
+    public void testRenderSkipsSameResult() {
+        ChatInputRecolorer recolorer = new ChatInputRecolorer();
+
+        String text = recolorer.render("Zezima: hello*", 6, "hello", ChatChannel.PUBLIC, 0x00FFFF);
+        assertEquals("Zezima: <col=00ffff>hello*</col>", text);
+
+        // The widget shows the rendered text now
+        assertNull(recolorer.render(text, 6, "hello", ChatChannel.PUBLIC, 0x00FFFF));
+        assertEquals(
+            "Zezima: <col=ff0000>hello*</col>",
+            recolorer.render(text, 6, "hello", ChatChannel.PUBLIC, 0xFF0000)
+        );
+    }
+}
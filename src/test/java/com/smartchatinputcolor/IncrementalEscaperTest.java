@@ -0,0 +1,42 @@
+package com.smartchatinputcolor;
+
+import net.runelite.client.util.Text;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalEscaperTest {
+    private final IncrementalEscaper escaper = new IncrementalEscaper();
+
+    private void assertEscaped(String text) {
+        assertEquals(Text.escapeJagex(text), escaper.escape(text).toString());
+    }
+
+    @Test
+    public void testTyping() {
+        String message = "hi <col=ff0000>red</col> & >_<";
+        for (int i = 0; i <= message.length(); i++) {
+            assertEscaped(message.substring(0, i));
+        }
+        for (int i = message.length(); i >= 0; i--) {
+            assertEscaped(message.substring(0, i));
+        }
+    }
+
+    @Test
+    public void testEditInMiddle() {
+        assertEscaped("a<b>c");
+        assertEscaped("a<x>c");
+        assertEscaped("<a\r\nb>");
+        assertEscaped("");
+        assertEscaped("<<<");
+    }
+
+    @Test
+    public void testLongMessage() {
+        String message = "<>".repeat(200);
+        assertEscaped(message);
+        assertEscaped(message + "<");
+        assertEscaped("x" + message);
+    }
+}
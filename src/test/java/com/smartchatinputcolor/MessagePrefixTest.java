@@ -0,0 +1,60 @@
+package com.smartchatinputcolor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessagePrefixTest {
+    private void assertPrefix(String text, MessagePrefix expectedPrefix) {
+        assertEquals(text, expectedPrefix, MessagePrefix.fromText(text));
+    }
+
+    @Test
+    public void testNoPrefix() {
+        assertPrefix("", MessagePrefix.NONE);
+        assertPrefix("test", MessagePrefix.NONE);
+        assertPrefix("p /test", MessagePrefix.NONE);
+    }
+
+    @Test
+    public void testChannelPrefixes() {
+        assertPrefix("/p test", MessagePrefix.PUBLIC);
+        assertPrefix("/@ptest", MessagePrefix.PUBLIC);
+        assertPrefix("/f", MessagePrefix.FRIEND);
+        assertPrefix("/ftest", MessagePrefix.FRIEND);
+        assertPrefix("/@f test", MessagePrefix.FRIEND);
+        assertPrefix("/c test", MessagePrefix.CLAN);
+        assertPrefix("/@c", MessagePrefix.CLAN);
+        assertPrefix("/gc test", MessagePrefix.GUEST);
+        assertPrefix("/@gc", MessagePrefix.GUEST);
+        assertPrefix("/@gctest", MessagePrefix.GUEST);
+        assertPrefix("/g test", MessagePrefix.GIM);
+        assertPrefix("/@g test", MessagePrefix.GIM_AT);
+        assertPrefix("/@gtest", MessagePrefix.GIM_AT);
+    }
+
+    @Test
+    public void testIncompletePrefixes() {
+        // Prefixes without @ require a space, otherwise only the slash counts
+        assertPrefix("/", MessagePrefix.SLASH_1);
+        assertPrefix("/p", MessagePrefix.SLASH_1);
+        assertPrefix("/ptest", MessagePrefix.SLASH_1);
+        assertPrefix("/ctest", MessagePrefix.SLASH_1);
+        assertPrefix("/g", MessagePrefix.SLASH_1);
+        assertPrefix("/gc", MessagePrefix.SLASH_1);
+        assertPrefix("/gctest", MessagePrefix.SLASH_1);
+        assertPrefix("/@", MessagePrefix.SLASH_1);
+        assertPrefix("/@g", MessagePrefix.SLASH_1);
+        assertPrefix("/@x", MessagePrefix.SLASH_1);
+    }
+
+    @Test
+    public void testSlashRuns() {
+        assertPrefix("/test", MessagePrefix.SLASH_1);
+        assertPrefix("//", MessagePrefix.SLASH_2);
+        assertPrefix("//p test", MessagePrefix.SLASH_2);
+        assertPrefix("///test", MessagePrefix.SLASH_3);
+        assertPrefix("////test", MessagePrefix.SLASH_4);
+        assertPrefix("//////test", MessagePrefix.SLASH_4);
+    }
+}
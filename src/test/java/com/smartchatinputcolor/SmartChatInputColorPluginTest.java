@@ -6,26 +6,48 @@ import com.google.inject.testing.fieldbinder.BoundFieldModule;
 import net.runelite.api.Client;
 import net.runelite.api.FriendsChatManager;
 import net.runelite.api.GameState;
+import net.runelite.api.Player;
+import net.runelite.api.VarClientStr;
+import net.runelite.api.events.BeforeRender;
+import net.runelite.api.events.FriendsChatChanged;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
+import net.runelite.api.events.VarClientIntChanged;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.gameval.InterfaceID;
 import net.runelite.api.gameval.VarbitID;
+import net.runelite.api.widgets.Widget;
 import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.events.PluginChanged;
 import net.runelite.client.externalplugins.ExternalPluginManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginManager;
+import net.runelite.client.ui.overlay.OverlayManager;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import javax.inject.Inject;
 import java.awt.*;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -45,12 +67,41 @@ public class SmartChatInputColorPluginTest {
     @Bind
     private PluginManager pluginManager;
 
+    @Mock
+    @Bind
+    private SmartChatInputColorConfig config;
+
+    @Mock
+    @Bind
+    private OverlayManager overlayManager;
+
+    @Mock
+    @Bind
+    private ClientThread clientThread;
+
+    @Mock
+    @Bind
+    private ScheduledExecutorService executor;
+
     @Before
     public void before() {
         Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
     }
 
     private void setupState(ClientState state) {
+        mockState(state);
+
+        // Initialize the plugin
+
+        // Start the plugin and fake a game tick to initialize the plugin
+
+        smartChatInputColorPlugin.startUp();
+
+        // Fake a game tick to let plugin initialize
+        smartChatInputColorPlugin.onGameTick(new GameTick());
+    }
+
+    private void mockState(ClientState state) {
         // Mock the client
 
         // Currently opened chat panel
@@ -100,15 +151,6 @@ public class SmartChatInputColorPluginTest {
         // Runelite chat color config
         when(configManager.getConfiguration(eq("textrecolor"), anyString(), eq(Color.class)))
             .thenReturn(mock(Color.class));
-
-        // Initialize the plugin
-
-        // Start the plugin and fake a game tick to initialize the plugin
-
-        smartChatInputColorPlugin.startUp();
-
-        // Fake a game tick to let plugin initialize
-        smartChatInputColorPlugin.onGameTick(new GameTick());
     }
 
     //region Assertion functions
@@ -528,6 +570,366 @@ public class SmartChatInputColorPluginTest {
         assertSlash(0, ChatChannel.PUBLIC);
     }
 
+    @Test
+    public void testStateChangeAfterDerivingChannel() {
+        setupState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+
+        assertSlash(0, ChatChannel.PUBLIC);
+        assertSlash(1, ChatChannel.PUBLIC);
+
+        smartChatInputColorPlugin.onFriendsChatChanged(new FriendsChatChanged(true));
+        assertSlash(1, ChatChannel.FRIEND);
+
+        // The derived channel is kept until the client reports the chat mode change
+        when(client.getVarcIntValue(VarClientInt.ACTIVE_CHAT_MODE)).thenReturn(ChatChannel.CLAN.ordinal());
+        assertSlash(0, ChatChannel.PUBLIC);
+        smartChatInputColorPlugin.onVarClientIntChanged(new VarClientIntChanged(VarClientInt.ACTIVE_CHAT_MODE));
+        assertSlash(0, ChatChannel.CLAN);
+    }
+
+    @Test
+    public void testSlashSwapperEnabledAfterStartUp() {
+        setupState(new ClientState(
+            false,
+            true,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+
+        assertSlash(1, ChatChannel.FRIEND);
+
+        // Enabling Slash Swapper only sends an event, the plugin list is not scanned again
+        Plugin slashSwapper = mock(Plugin.class);
+        when(slashSwapper.getName()).thenReturn("Slash Swapper");
+        when(pluginManager.isPluginEnabled(slashSwapper)).thenReturn(true);
+        smartChatInputColorPlugin.onPluginChanged(new PluginChanged(slashSwapper, true));
+
+        assertSlash(1, ChatChannel.CLAN);
+        assertSlash(2, ChatChannel.FRIEND);
+    }
+
+    @Test
+    public void testSlashSwapperGuestChatConfigNotSet() {
+        mockState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.ON,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+        when(configManager.getConfiguration("slashswapper", "slashGuestChat", boolean.class)).thenReturn(null);
+
+        smartChatInputColorPlugin.startUp();
+        smartChatInputColorPlugin.onGameTick(new GameTick());
+
+        // Slash Swapper doesn't swap guest chat by default
+        assertSlash(1, ChatChannel.CLAN);
+        assertSlash(3, ChatChannel.GUEST);
+    }
+
+    @Test
+    public void testRecolorRequestsAreCoalesced() {
+        setupState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+
+        smartChatInputColorPlugin.onFriendsChatChanged(new FriendsChatChanged(true));
+        smartChatInputColorPlugin.onFriendsChatChanged(new FriendsChatChanged(false));
+        smartChatInputColorPlugin.onFriendsChatChanged(new FriendsChatChanged(true));
+        verify(client, never()).getWidget(InterfaceID.Chatbox.INPUT);
+
+        // All requests since the last frame, including the one from initializing, result in a single recolor
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+        verify(client, times(1)).getWidget(InterfaceID.Chatbox.INPUT);
+    }
+
+    @Test
+    public void testConfigChangesAreAppliedAtOnce() {
+        setupState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.ON,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+
+        Widget inputWidget = mock(Widget.class);
+        when(client.getWidget(InterfaceID.Chatbox.INPUT)).thenReturn(inputWidget);
+        when(inputWidget.getText()).thenReturn("Zezima: /c hi*");
+        when(client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT)).thenReturn("/c hi");
+
+        // A profile switch changes many config keys in a row
+        when(configManager.getConfiguration("textrecolor", ChatChannel.CLAN.getColorConfigKey(true), Color.class))
+            .thenReturn(new Color(0x00FF00));
+        when(configManager.getConfiguration("textrecolor", ChatChannel.GUEST.getColorConfigKey(true), Color.class))
+            .thenReturn(new Color(0x0000FF));
+        changeConfig("textrecolor", ChatChannel.CLAN.getColorConfigKey(true), "-16711936");
+        changeConfig("textrecolor", ChatChannel.CLAN.getColorConfigKey(false), "-16711936");
+        changeConfig("slashswapper", "slashGuestChat", "true");
+        changeConfig("textrecolor", ChatChannel.GUEST.getColorConfigKey(true), "-16711936");
+
+        // Slash prefixes only swap a precompiled table, so they change right away
+        assertSlash(1, ChatChannel.GUEST);
+
+        // Colors are read in a single background task
+        ArgumentCaptor<Runnable> readConfigChanges = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, times(1)).execute(readConfigChanges.capture());
+        readConfigChanges.getValue().run();
+
+        // Colors are only installed on the client thread
+        ArgumentCaptor<Runnable> installConfigChanges = ArgumentCaptor.forClass(Runnable.class);
+        verify(clientThread, times(1)).invoke(installConfigChanges.capture());
+        installConfigChanges.getValue().run();
+
+        // The colors that were read in the background are used for the next frame
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+        verify(inputWidget).setText("Zezima: <col=00ff00>/c hi*</col>");
+        when(inputWidget.getText()).thenReturn("Zezima: /hi*");
+        when(client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT)).thenReturn("/hi");
+        smartChatInputColorPlugin.recolorChatTypedText();
+        verify(inputWidget).setText("Zezima: <col=0000ff>/hi*</col>");
+
+        // Changes after reading schedule a new task
+        changeConfig("textrecolor", ChatChannel.CLAN.getColorConfigKey(true), "-16776961");
+        verify(executor, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void testQueuedWorkIsDroppedAfterShutDown() {
+        setupState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+
+        // Logging in again schedules initializing on the client thread, a config change schedules reading it
+        GameStateChanged loggedIn = new GameStateChanged();
+        loggedIn.setGameState(GameState.LOGGED_IN);
+        smartChatInputColorPlugin.onGameStateChanged(loggedIn);
+        ArgumentCaptor<BooleanSupplier> initialize = ArgumentCaptor.forClass(BooleanSupplier.class);
+        verify(clientThread, times(2)).invoke(initialize.capture());
+        changeConfig("textrecolor", ChatChannel.CLAN.getColorConfigKey(true), "-16711936");
+        ArgumentCaptor<Runnable> readConfigChanges = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).execute(readConfigChanges.capture());
+        lenient().when(client.getLocalPlayer()).thenReturn(mock(Player.class));
+
+        // The plugin is stopped before the queued work runs
+        smartChatInputColorPlugin.shutDown();
+        clearInvocations(client, configManager, clientThread);
+        initialize.getValue().getAsBoolean();
+        readConfigChanges.getValue().run();
+
+        verifyNoInteractions(client, configManager, clientThread);
+    }
+
+    private void changeConfig(String group, String key, String value) {
+        ConfigChanged configChanged = new ConfigChanged();
+        configChanged.setGroup(group);
+        configChanged.setKey(key);
+        configChanged.setNewValue(value);
+        smartChatInputColorPlugin.onConfigChanged(configChanged);
+    }
+
+    @Test
+    public void testInitializeWithoutWaitingForGameTick() {
+        mockState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+        when(configManager.getConfiguration("textrecolor", ChatChannel.PUBLIC.getColorConfigKey(true), Color.class))
+            .thenReturn(new Color(0x00FFFF));
+        Widget inputWidget = mock(Widget.class);
+        when(client.getWidget(InterfaceID.Chatbox.INPUT)).thenReturn(inputWidget);
+        when(inputWidget.getText()).thenReturn("Zezima: hello*");
+        when(client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT)).thenReturn("hello");
+        when(client.getLocalPlayer()).thenReturn(mock(Player.class));
+
+        smartChatInputColorPlugin.startUp();
+        ArgumentCaptor<BooleanSupplier> initialize = ArgumentCaptor.forClass(BooleanSupplier.class);
+        verify(clientThread).invoke(initialize.capture());
+
+        // The vars and the local player are there after logging in, so the input is colored on the first client
+        // thread turn instead of the next game tick
+        initialize.getValue().getAsBoolean();
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+        verify(inputWidget).setText("Zezima: <col=00ffff>hello*</col>");
+    }
+
+    @Test
+    public void testColorVarpBeforeLocalPlayer() {
+        mockState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+        when(configManager.getConfiguration("textrecolor", ChatChannel.PUBLIC.getColorConfigKey(true), Color.class))
+            .thenReturn(null);
+
+        smartChatInputColorPlugin.startUp();
+        ArgumentCaptor<BooleanSupplier> initialize = ArgumentCaptor.forClass(BooleanSupplier.class);
+        verify(clientThread).invoke(initialize.capture());
+        initialize.getValue().getAsBoolean();
+
+        // A color varp arrives after logging in but before the local player, without a snapshot of the chat state
+        int varpId = ChatChannel.PUBLIC.getTransparentVarpId();
+        when(client.getVarpValue(varpId)).thenReturn(0x00FF00 + 1);
+        VarbitChanged varbitChanged = new VarbitChanged();
+        varbitChanged.setVarbitId(-1);
+        varbitChanged.setVarpId(varpId);
+        smartChatInputColorPlugin.onVarbitChanged(varbitChanged);
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+        verify(client, never()).getWidget(InterfaceID.Chatbox.INPUT);
+
+        // The input is colored as soon as the plugin is initialized
+        Widget inputWidget = mock(Widget.class);
+        when(client.getWidget(InterfaceID.Chatbox.INPUT)).thenReturn(inputWidget);
+        when(inputWidget.getText()).thenReturn("Zezima: hello*");
+        when(client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT)).thenReturn("hello");
+        when(client.getLocalPlayer()).thenReturn(mock(Player.class));
+        initialize.getValue().getAsBoolean();
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+        verify(inputWidget).setText("Zezima: <col=00ff00>hello*</col>");
+    }
+
+    @Test
+    public void testChatModeAfterInitializing() {
+        mockState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+        when(configManager.getConfiguration("textrecolor", ChatChannel.CLAN.getColorConfigKey(true), Color.class))
+            .thenReturn(new Color(0xFF0000));
+        Widget inputWidget = mock(Widget.class);
+        when(client.getWidget(InterfaceID.Chatbox.INPUT)).thenReturn(inputWidget);
+        when(inputWidget.getText()).thenReturn("Zezima: hello*");
+        when(client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT)).thenReturn("hello");
+
+        smartChatInputColorPlugin.startUp();
+        smartChatInputColorPlugin.onGameTick(new GameTick());
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+
+        // The chat mode arrives after initializing, the input is recolored on the next frame
+        when(client.getVarcIntValue(VarClientInt.ACTIVE_CHAT_MODE)).thenReturn(ChatChannel.CLAN.ordinal());
+        smartChatInputColorPlugin.onVarClientIntChanged(new VarClientIntChanged(VarClientInt.ACTIVE_CHAT_MODE));
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+
+        verify(inputWidget).setText("Zezima: <col=ff0000>hello*</col>");
+    }
+
+    @Test
+    public void testColorVarpAfterInitializing() {
+        mockState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+        when(configManager.getConfiguration("textrecolor", ChatChannel.PUBLIC.getColorConfigKey(true), Color.class))
+            .thenReturn(null);
+        Widget inputWidget = mock(Widget.class);
+        when(client.getWidget(InterfaceID.Chatbox.INPUT)).thenReturn(inputWidget);
+        when(inputWidget.getText()).thenReturn("Zezima: hello*");
+        when(client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT)).thenReturn("hello");
+
+        smartChatInputColorPlugin.startUp();
+        smartChatInputColorPlugin.onGameTick(new GameTick());
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+
+        // The color varp arrives after initializing, the input is recolored without waiting for the chat prompt
+        int varpId = ChatChannel.PUBLIC.getTransparentVarpId();
+        when(client.getVarpValue(varpId)).thenReturn(0x00FF00 + 1);
+        VarbitChanged varbitChanged = new VarbitChanged();
+        varbitChanged.setVarbitId(-1);
+        varbitChanged.setVarpId(varpId);
+        smartChatInputColorPlugin.onVarbitChanged(varbitChanged);
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+
+        verify(inputWidget).setText("Zezima: <col=00ff00>hello*</col>");
+    }
+
+    @Test
+    public void testStateSnapshotColorsFirstFrame() {
+        mockState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+        when(configManager.getConfiguration("textrecolor", ChatChannel.PUBLIC.getColorConfigKey(true), Color.class))
+            .thenReturn(new Color(0x123456));
+        int[] colors = new int[ChatChannel.values().length * 2];
+        colors[ChatChannelColors.index(ChatChannel.PUBLIC, true)] = 0x123456;
+        when(configManager.getRSProfileConfiguration(SmartChatInputColorConfig.GROUP, "stateSnapshot"))
+            .thenReturn(new StateSnapshot(ChatPanel.ALL, true, colors).encode());
+        Widget inputWidget = mock(Widget.class);
+        when(client.getWidget(InterfaceID.Chatbox.INPUT)).thenReturn(inputWidget);
+        when(inputWidget.getText()).thenReturn("Zezima: hello*");
+        when(client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT)).thenReturn("hello");
+
+        // The saved state colors the first frame, before the plugin is initialized
+        smartChatInputColorPlugin.startUp();
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+        verify(inputWidget).setText("Zezima: <col=123456>hello*</col>");
+
+        // Initializing confirms the saved state, so the widget doesn't have to be updated
+        when(client.getLocalPlayer()).thenReturn(mock(Player.class));
+        ArgumentCaptor<BooleanSupplier> initialize = ArgumentCaptor.forClass(BooleanSupplier.class);
+        verify(clientThread).invoke(initialize.capture());
+        initialize.getValue().getAsBoolean();
+        smartChatInputColorPlugin.onBeforeRender(new BeforeRender());
+        verify(inputWidget, times(1)).setText(anyString());
+    }
+
+    @Test
+    public void testRelogOnlyReadsChangedState() {
+        setupState(new ClientState(
+            false,
+            false,
+            SlashSwapperMode.OFF,
+            ChatPanel.ALL,
+            ChatChannel.PUBLIC
+        ));
+        clearInvocations(configManager, pluginManager);
+
+        GameStateChanged loginScreen = new GameStateChanged();
+        loginScreen.setGameState(GameState.LOGIN_SCREEN);
+        smartChatInputColorPlugin.onGameStateChanged(loginScreen);
+        GameStateChanged loggedIn = new GameStateChanged();
+        loggedIn.setGameState(GameState.LOGGED_IN);
+        smartChatInputColorPlugin.onGameStateChanged(loggedIn);
+        when(client.getVarcIntValue(VarClientInt.OPEN_CHAT_PANEL)).thenReturn(ChatPanel.CLAN.getVarClientIntValue());
+        smartChatInputColorPlugin.onGameTick(new GameTick());
+
+        // Colors come from config that didn't change, and Slash Swapper state is kept up to date by events
+        verify(configManager, never()).getConfiguration(eq("textrecolor"), anyString(), eq(Color.class));
+        verify(pluginManager, never()).getPlugins();
+        assertSlash(0, ChatChannel.CLAN);
+    }
+
     public static void main(String[] args) throws Exception {
         @SuppressWarnings("unchecked")
         var plugins = (Class<? extends Plugin>[]) new Class[]{SmartChatInputColorPlugin.class};
@@ -0,0 +1,37 @@
+package com.smartchatinputcolor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class StateSnapshotTest {
+    @Test
+    public void testEncodeDecode() {
+        int[] colors = new int[ChatChannel.values().length * 2];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = 0x10203 * i;
+        }
+        colors[1] = 0xFFFFFF;
+
+        StateSnapshot snapshot = StateSnapshot.decode(new StateSnapshot(ChatPanel.CLAN, true, colors).encode());
+        assertNotNull(snapshot);
+        assertEquals(ChatPanel.CLAN, snapshot.getChatPanel());
+        assertEquals(true, snapshot.isTransparentChatbox());
+        assertArrayEquals(colors, snapshot.getColors());
+    }
+
+    @Test
+    public void testDecodeInvalid() {
+        String valid = new StateSnapshot(ChatPanel.ALL, false, new int[ChatChannel.values().length * 2]).encode();
+        assertNotNull(StateSnapshot.decode(valid));
+
+        assertNull(StateSnapshot.decode(""));
+        assertNull(StateSnapshot.decode("0" + valid.substring(1)));
+        assertNull(StateSnapshot.decode(valid.replace("ALL", "ANYTHING")));
+        assertNull(StateSnapshot.decode(valid + ",0"));
+        assertNull(StateSnapshot.decode(valid.substring(0, valid.length() - 1) + "x"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.smartchatinputcolor;
+
+import com.google.inject.Guice;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.Player;
+import net.runelite.api.VarClientStr;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.gameval.InterfaceID;
+import net.runelite.api.gameval.VarbitID;
+import net.runelite.api.widgets.Widget;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.plugins.PluginManager;
+import net.runelite.client.ui.overlay.OverlayManager;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Stub-only mocks of the client and everything else the plugin is injected with, logged in with default settings and
+ * no other plugins or config set. Stub-only mocks don't record their invocations, so they don't allocate on every call.
+ * Shared by the benchmarks and the allocation budget tests.
+ */
+class StubClientFixture {
+    static final String NAME = "Zezima";
+
+    @Bind
+    private final Client client = mock(Client.class, withSettings().stubOnly());
+
+    @Bind
+    private final ConfigManager configManager = mock(ConfigManager.class, withSettings().stubOnly());
+
+    @Bind
+    private final PluginManager pluginManager = mock(PluginManager.class, withSettings().stubOnly());
+
+    @Bind
+    private final SmartChatInputColorConfig config = mock(SmartChatInputColorConfig.class, withSettings().stubOnly());
+
+    @Bind
+    private final OverlayManager overlayManager = mock(OverlayManager.class, withSettings().stubOnly());
+
+    @Bind
+    private final ScheduledExecutorService executor = mock(ScheduledExecutorService.class, withSettings().stubOnly());
+
+    private final Widget inputWidget = mock(Widget.class, withSettings().stubOnly());
+
+    private String typedText = "";
+
+    private String widgetText = widgetText("");
+
+    /**
+     * Start a plugin against the mocks and let it initialize
+     *
+     * @return Started plugin
+     */
+    SmartChatInputColorPlugin startPlugin() {
+        SmartChatInputColorPlugin plugin = Guice.createInjector(BoundFieldModule.of(this))
+            .getInstance(SmartChatInputColorPlugin.class);
+
+        when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
+        when(client.getLocalPlayer()).thenReturn(mock(Player.class, withSettings().stubOnly()));
+        when(client.getVarcIntValue(VarClientInt.OPEN_CHAT_PANEL)).thenReturn(ChatPanel.ALL.getVarClientIntValue());
+        when(client.getVarcIntValue(VarClientInt.ACTIVE_CHAT_MODE)).thenReturn(0);
+        when(client.getVarbitValue(VarbitID.IRONMAN)).thenReturn(0);
+        //noinspection MagicConstant
+        when(client.getVarpValue(anyInt())).thenReturn(0);
+        when(client.isResized()).thenReturn(true);
+        when(client.getVarbitValue(VarbitID.CHATBOX_TRANSPARENCY)).thenReturn(1);
+        when(client.getWidget(InterfaceID.Chatbox.INPUT)).thenReturn(inputWidget);
+        when(client.getVarcStrValue(VarClientStr.CHATBOX_TYPED_TEXT)).thenAnswer(invocation -> typedText);
+        when(inputWidget.getText()).thenAnswer(invocation -> widgetText);
+        when(pluginManager.getPlugins()).thenReturn(List.of());
+
+        plugin.startUp();
+        plugin.onGameTick(new GameTick());
+        return plugin;
+    }
+
+    /**
+     * @param typedText Text typed by the player
+     * @return Text the chat input widget shows for the typed text
+     */
+    static String widgetText(String typedText) {
+        return NAME + ": " + typedText + "*";
+    }
+
+    /**
+     * Set the text typed by the player
+     *
+     * @param typedText  Text typed by the player
+     * @param widgetText Text the chat input widget shows, see {@link #widgetText(String)}
+     */
+    void setInput(String typedText, String widgetText) {
+        this.typedText = typedText;
+        this.widgetText = widgetText;
+    }
+
+    Client getClient() {
+        return client;
+    }
+
+    Widget getInputWidget() {
+        return inputWidget;
+    }
+}